@@ -0,0 +1,154 @@
+package edu.com.co.Proyecto.Final.Config;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Límite de peticiones concurrentes según el tamaño del pool de conexiones (solo con hilos virtuales)
+ *
+ * Con spring.threads.virtual.enabled=true Tomcat atiende cada petición en un hilo virtual y ya no hay un pool
+ * de 200 hilos que limite la concurrencia: miles de peticiones llegarían a la vez a HikariCP y esperarían una
+ * conexión hasta agotar connection-timeout, a mitad de la petición.
+ * Este filtro deja pasar tantas peticiones como conexiones tiene el pool (cada petición usa a lo sumo una por
+ * open-in-view); las demás esperan su turno en orden y, si no lo obtienen a tiempo, reciben 503 de inmediato.
+ * Los recursos estáticos e imágenes no usan la base de datos y no se limitan.
+ *
+ * Va antes de Spring Security porque la validación del JWT también consulta la base de datos.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 1)
+public class FiltroConcurrenciaBaseDatos extends OncePerRequestFilter {
+
+	private static final Logger log = LoggerFactory.getLogger(FiltroConcurrenciaBaseDatos.class);
+
+	// Rutas que se sirven sin consultar la base de datos
+	private static final String[] RUTAS_SIN_LIMITE = { "/css/", "/js/", "/imagenes/", "/actuator/", "/favicon.ico" };
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	// Peticiones simultáneas; 0 = tamaño máximo del pool de conexiones
+	@Value("${concurrencia.limite:0}")
+	private int limiteConfigurado;
+
+	// Tiempo que una petición espera su turno antes de responder 503
+	@Value("${concurrencia.espera-ms:2000}")
+	private long esperaMs;
+
+	private int limite;
+	private Semaphore permisos;
+	private Counter rechazadas;
+
+	@PostConstruct
+	void inicializar() {
+		limite = limiteConfigurado > 0 ? limiteConfigurado : tamanoPoolConexiones();
+		// Justo: bajo saturación las peticiones pasan en orden de llegada
+		permisos = new Semaphore(limite, true);
+
+		Gauge.builder("concurrencia.peticiones.activas", () -> limite - permisos.availablePermits())
+				.description("Peticiones dentro del límite de concurrencia")
+				.register(meterRegistry);
+		Gauge.builder("concurrencia.peticiones.en-espera", permisos, Semaphore::getQueueLength)
+				.description("Peticiones esperando turno")
+				.register(meterRegistry);
+		rechazadas = Counter.builder("concurrencia.peticiones.rechazadas")
+				.description("Peticiones rechazadas con 503 por esperar más que concurrencia.espera-ms")
+				.register(meterRegistry);
+
+		log.info("Hilos virtuales activos: máximo {} peticiones concurrentes (espera {} ms)", limite, esperaMs);
+	}
+
+	/**
+	 * Cantidad de peticiones que pueden ejecutarse a la vez
+	 */
+	public int getLimite() {
+		return limite;
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		String ruta = request.getRequestURI().substring(request.getContextPath().length());
+		for (String prefijo : RUTAS_SIN_LIMITE) {
+			if (ruta.startsWith(prefijo)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		boolean adquirido;
+		try {
+			adquirido = permisos.tryAcquire(esperaMs, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			adquirido = false;
+		}
+
+		if (!adquirido) {
+			rechazadas.increment();
+			response.setHeader("Retry-After", "1");
+			response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Servidor ocupado, intente nuevamente");
+			return;
+		}
+
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			permisos.release();
+		}
+	}
+
+	// Semáforo del límite (pruebas)
+	Semaphore getPermisos() {
+		return permisos;
+	}
+
+	// ==================== MÉTODOS PRIVADOS ====================
+
+	private int tamanoPoolConexiones() {
+		try {
+			if (dataSource.isWrapperFor(HikariDataSource.class)) {
+				return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+			}
+		} catch (SQLException e) {
+			log.warn("No se pudo leer el tamaño del pool de conexiones: {}", e.getMessage());
+		}
+		// Tamaño por defecto de HikariCP
+		return 10;
+	}
+}
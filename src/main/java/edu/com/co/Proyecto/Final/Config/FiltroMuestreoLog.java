@@ -0,0 +1,50 @@
+package edu.com.co.Proyecto.Final.Config;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * Muestreo de eventos de log de alto volumen (configurado en logback-spring.xml)
+ * Los eventos marcados con MUESTREO se registran solo 1 de cada N veces por mensaje,
+ * el resto se descarta antes de construir el evento (sin formatear ni encolar nada).
+ * Los eventos de nivel ERROR nunca se descartan.
+ */
+public class FiltroMuestreoLog extends TurboFilter {
+
+	// Marcador para los eventos que se repiten por petición (ej: imagen no encontrada)
+	public static final Marker MUESTREO = MarkerFactory.getMarker("MUESTREO");
+
+	private int unoDeCada = 100;
+
+	// Contador por plantilla de mensaje: las plantillas son constantes, así que el mapa queda acotado
+	private final ConcurrentHashMap<String, AtomicLong> contadores = new ConcurrentHashMap<>();
+
+	@Override
+	public FilterReply decide(Marker marker, Logger logger, Level level, String formato, Object[] parametros, Throwable t) {
+		if (marker == null || !marker.contains(MUESTREO) || level.isGreaterOrEqual(Level.ERROR) || unoDeCada <= 1) {
+			return FilterReply.NEUTRAL;
+		}
+		// Las llamadas a isXxxEnabled(marker) no traen mensaje: no se cuentan
+		if (formato == null) {
+			return FilterReply.NEUTRAL;
+		}
+		long n = contadores.computeIfAbsent(formato, f -> new AtomicLong()).getAndIncrement();
+		return n % unoDeCada == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+	}
+
+	public int getUnoDeCada() {
+		return unoDeCada;
+	}
+
+	public void setUnoDeCada(int unoDeCada) {
+		this.unoDeCada = unoDeCada;
+	}
+}
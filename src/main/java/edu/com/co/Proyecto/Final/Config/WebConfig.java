@@ -1,25 +1,52 @@
 package edu.com.co.Proyecto.Final.Config;
 
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import edu.com.co.Proyecto.Final.Security.usuarioActualResolver;
 
 /**
  * Configuración de recursos web para servir archivos estáticos
+ * y de los parámetros de controlador propios (@UsuarioActual)
  */
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 	
+	@Autowired
+	private usuarioActualResolver usuarioActualResolver;
+	
+	// Segundos de cache de los recursos estáticos (0 en desarrollo, un año en el perfil prod)
+	@Value("${spring.web.resources.cache.period:0}")
+	private int periodoCache;
+	
+	@Override
+	public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+		// Usuario autenticado cargado una sola vez por petición
+		resolvers.add(usuarioActualResolver);
+	}
+	
 	@Override
 	public void addResourceHandlers(ResourceHandlerRegistry registry) {
 		// Configurar el mapeo de recursos estáticos
 		// Esto permite servir archivos desde /imagenes/archivo.webp directamente desde static/imagenes/
+		// Al registrar "/**" aquí, Spring Boot no aplica su propia cadena de recursos: se declara la versión por
+		// contenido (@{/css/styles.css} se escribe como /css/styles-<md5>.css), así un cache largo nunca sirve
+		// un recurso desactualizado tras un despliegue
 		registry.addResourceHandler("/**")
 				.addResourceLocations(
 					"classpath:/static/",
 					"classpath:/static/imagenes/",
 					"classpath:/static/css/",
 					"classpath:/static/js/")
-				.setCachePeriod(31536000);
+				.setCachePeriod(periodoCache)
+				.resourceChain(true)
+				.addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
 	}
 }
@@ -2,6 +2,7 @@ package edu.com.co.Proyecto.Final.Config;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 import edu.com.co.Proyecto.Final.Model.roles;
@@ -10,8 +11,10 @@ import edu.com.co.Proyecto.Final.Model.producto;
 import edu.com.co.Proyecto.Final.Repository.rolRepository;
 import edu.com.co.Proyecto.Final.Repository.usuarioRepository;
 import edu.com.co.Proyecto.Final.Repository.productoRepository;
+import edu.com.co.Proyecto.Final.Repository.resenaRepository;
 
 @Component
+@Order(1)
 public class dataInitializer implements CommandLineRunner {
 	
 	@Autowired
@@ -26,6 +29,9 @@ public class dataInitializer implements CommandLineRunner {
 	@Autowired
 	private productoRepository productoRepository;
 	
+	@Autowired
+	private resenaRepository resenaRepository;
+	
 	@Override
 	public void run(String... args) throws Exception {
 		// Inicializar roles si no existen
@@ -36,6 +42,12 @@ public class dataInitializer implements CommandLineRunner {
 		
 		// Inicializar productos si no existen
 		initializeProductos();
+		
+		// Poblar agregados de calificación de productos con reseñas previas
+		initializeAgregadosCalificacion();
+		
+		// Marcar las reseñas con comentario creadas antes de existir la columna conComentario
+		initializeResenasConComentario();
 	}
 	
 	private void initializeRoles() {
@@ -91,6 +103,20 @@ public class dataInitializer implements CommandLineRunner {
 		}
 	}
 	
+	private void initializeAgregadosCalificacion() {
+		int actualizados = productoRepository.inicializarAgregadosCalificacion();
+		if (actualizados > 0) {
+			System.out.println("✓ Agregados de calificación inicializados para " + actualizados + " productos");
+		}
+	}
+	
+	private void initializeResenasConComentario() {
+		int actualizadas = resenaRepository.inicializarConComentario();
+		if (actualizadas > 0) {
+			System.out.println("✓ Indicador de comentario inicializado para " + actualizadas + " reseñas");
+		}
+	}
+	
 	private void initializeProductos() {
 		// Cheesecake de Fresa
 		if (productoRepository.findByNombreProducto("Cheesecake de Fresa").isEmpty()) {
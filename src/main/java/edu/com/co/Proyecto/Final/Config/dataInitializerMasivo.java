@@ -0,0 +1,242 @@
+package edu.com.co.Proyecto.Final.Config;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import edu.com.co.Proyecto.Final.Repository.rolRepository;
+import edu.com.co.Proyecto.Final.Service.secuenciaIdService;
+
+/**
+ * Variante masiva de dataInitializer para pruebas de carga (perfil "carga")
+ * Inserta productos, usuarios y reseñas sintéticos por lotes JDBC en lugar de entidad por entidad,
+ * con los agregados de calificación ya calculados, para poder sembrar millones de filas en minutos
+ *
+ * Los ids se reservan por rangos en secuenciaIdService, así los INSERT llevan el id y no dependen de AUTO_INCREMENT
+ *
+ * Las reseñas son deterministas: el usuario u reseña los productos (j * SALTO + u) % productos,
+ * j = 0..resenasPorUsuario-1, así nunca se repite el par (usuario, producto)
+ */
+@Component
+@Profile("carga")
+@Order(2)
+public class dataInitializerMasivo implements CommandLineRunner {
+
+	// Prefijo de los datos sembrados, para detectar si ya existen
+	public static final String PREFIJO_PRODUCTO = "Carga ";
+	public static final String PREFIJO_USUARIO = "carga";
+
+	// Contraseña de todos los usuarios sembrados (se codifica una sola vez)
+	public static final String CONTRASENA_USUARIOS = "carga123";
+
+	// Salto entre los productos que reseña un mismo usuario (primo, reparte las reseñas por el catálogo)
+	private static final int SALTO = 997;
+
+	private static final String[] SABORES = {
+		"chocolate", "fresa", "vainilla", "queso", "limón", "maracuyá", "arequipe", "coco",
+		"almendra", "café", "caramelo", "mora", "mango", "avena", "canela", "nuez"
+	};
+
+	private static final String[] TIPOS = {
+		"Torta", "Cheesecake", "Brownie", "Mousse", "Flan", "Galleta", "Tarta", "Helado"
+	};
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+
+	@Autowired
+	private rolRepository rolRepository;
+
+	@Autowired
+	private secuenciaIdService secuenciaIdService;
+
+	@Value("${carga.semilla.productos:100000}")
+	private int cantidadProductos;
+
+	@Value("${carga.semilla.usuarios:20000}")
+	private int cantidadUsuarios;
+
+	@Value("${carga.semilla.resenas-por-usuario:100}")
+	private int resenasPorUsuario;
+
+	// Filas por lote JDBC
+	@Value("${carga.semilla.lote:5000}")
+	private int tamanoLote;
+
+	// Días hacia atrás en los que se reparten las fechas de las reseñas
+	@Value("${carga.semilla.dias:365}")
+	private int dias;
+
+	@Override
+	public void run(String... args) throws Exception {
+		Integer existentes = jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM productos WHERE nombre_producto LIKE ?", Integer.class, PREFIJO_PRODUCTO + "%");
+		if (existentes != null && existentes > 0) {
+			System.out.println("✓ Datos de carga ya sembrados (" + existentes + " productos)");
+			return;
+		}
+
+		int porUsuario = Math.min(resenasPorUsuario, cantidadProductos);
+		long inicio = System.nanoTime();
+
+		long primerProducto = sembrarProductos(porUsuario);
+		long primerUsuario = sembrarUsuarios();
+		long resenas = sembrarResenas(primerUsuario, primerProducto, porUsuario);
+
+		long segundos = (System.nanoTime() - inicio) / 1_000_000_000L;
+		System.out.println("✓ Datos de carga sembrados: " + cantidadProductos + " productos, " + cantidadUsuarios
+				+ " usuarios, " + resenas + " reseñas en " + segundos + " s");
+	}
+
+	// ==================== MÉTODOS PRIVADOS ====================
+
+	/**
+	 * Insertar los productos con sus agregados de calificación ya calculados a partir del plan de reseñas
+	 * Devuelve el id del primer producto (los ids son consecutivos)
+	 */
+	private long sembrarProductos(int porUsuario) {
+		// Agregados por índice de producto: [cantidad, suma, 1★, 2★, 3★, 4★, 5★]
+		long[][] agregados = new long[cantidadProductos][7];
+		for (int u = 0; u < cantidadUsuarios; u++) {
+			for (int j = 0; j < porUsuario; j++) {
+				int p = indiceProducto(u, j);
+				int calificacion = calificacion(u, p);
+				agregados[p][0]++;
+				agregados[p][1] += calificacion;
+				agregados[p][1 + calificacion]++;
+			}
+		}
+
+		long primerId = secuenciaIdService.reservar("productos", cantidadProductos);
+		String sql = "INSERT INTO productos (id_producto, nombre_producto, precio_producto, ruta_imagen_producto, descripcion_producto, "
+				+ "ingredientes_producto, calificacion_producto, cantidad_resenas, suma_calificaciones, "
+				+ "resenas1estrella, resenas2estrellas, resenas3estrellas, resenas4estrellas, resenas5estrellas) "
+				+ "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+		insertarPorLotes(sql, cantidadProductos, (ps, i) -> {
+			String sabor = SABORES[i % SABORES.length];
+			String otroSabor = SABORES[(i / SABORES.length) % SABORES.length];
+			String tipo = TIPOS[(i / (SABORES.length * SABORES.length)) % TIPOS.length];
+			long[] a = agregados[i];
+
+			ps.setLong(1, primerId + i);
+			ps.setString(2, PREFIJO_PRODUCTO + tipo + " de " + sabor + " y " + otroSabor + " " + i);
+			ps.setDouble(3, 8000 + (i % 120) * 500);
+			ps.setString(4, "Cheesecake-de-fresa.webp");
+			ps.setString(5, tipo + " artesanal de " + sabor + " con un toque de " + otroSabor);
+			ps.setString(6, "Harina, huevos, azúcar, mantequilla, " + sabor + ", " + otroSabor);
+			ps.setDouble(7, a[0] > 0 ? (double) a[1] / a[0] : 0.0);
+			ps.setLong(8, a[0]);
+			ps.setLong(9, a[1]);
+			for (int e = 1; e <= 5; e++) {
+				ps.setLong(9 + e, a[1 + e]);
+			}
+		});
+		return primerId;
+	}
+
+	/**
+	 * Insertar los usuarios con rol USER y la misma contraseña codificada
+	 * Devuelve el id del primer usuario (los ids son consecutivos)
+	 */
+	private long sembrarUsuarios() {
+		Long idRol = rolRepository.findByNombreRol("USER")
+				.orElseThrow(() -> new IllegalStateException("El rol USER no existe"))
+				.getIdRol();
+		String contrasena = passwordEncoder.encode(CONTRASENA_USUARIOS);
+
+		long primerId = secuenciaIdService.reservar("usuarios", cantidadUsuarios);
+		String sql = "INSERT INTO usuarios (id_usuario, nombre_usuario, contrasena_usuario, email_usuario, id_rol, version_token) "
+				+ "VALUES (?, ?, ?, ?, ?, 0)";
+
+		insertarPorLotes(sql, cantidadUsuarios, (ps, i) -> {
+			ps.setLong(1, primerId + i);
+			ps.setString(2, PREFIJO_USUARIO + i);
+			ps.setString(3, contrasena);
+			ps.setString(4, PREFIJO_USUARIO + i + "@example.com");
+			ps.setLong(5, idRol);
+		});
+		return primerId;
+	}
+
+	/**
+	 * Insertar las reseñas del plan determinista, con fechas repartidas en los últimos días
+	 */
+	private long sembrarResenas(long primerUsuario, long primerProducto, int porUsuario) {
+		String sql = "INSERT INTO resenas (id_resena, id_usuario, id_producto, calificacion, comentario_resena, con_comentario, "
+				+ "fecha_creacion_resena, fecha_actualizacion_resena) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+		long ahora = System.currentTimeMillis();
+		long ventana = dias * 24L * 60 * 60 * 1000;
+		int total = cantidadUsuarios * porUsuario;
+		long primerId = secuenciaIdService.reservar("resenas", total);
+
+		insertarPorLotes(sql, total, (ps, k) -> {
+			int u = k / porUsuario;
+			int j = k % porUsuario;
+			int p = indiceProducto(u, j);
+			int calificacion = calificacion(u, p);
+			boolean conComentario = (u + j) % 3 == 0;
+			Timestamp fecha = new Timestamp(ahora - Math.floorMod((long) k * 7_919_993L, ventana));
+
+			ps.setLong(1, primerId + k);
+			ps.setLong(2, primerUsuario + u);
+			ps.setLong(3, primerProducto + p);
+			ps.setInt(4, calificacion);
+			ps.setString(5, conComentario ? "Reseña de carga " + calificacion + " estrellas" : null);
+			ps.setBoolean(6, conComentario);
+			ps.setTimestamp(7, fecha);
+			ps.setTimestamp(8, fecha);
+		});
+		return total;
+	}
+
+	private int indiceProducto(int usuario, int j) {
+		return (int) (((long) j * SALTO + usuario) % cantidadProductos);
+	}
+
+	private int calificacion(int usuario, int producto) {
+		// Sesgo hacia calificaciones altas, como en un catálogo real
+		int valor = Math.floorMod(usuario * 31 + producto * 17, 10);
+		return valor < 1 ? 1 : valor < 2 ? 2 : valor < 4 ? 3 : valor < 7 ? 4 : 5;
+	}
+
+	/**
+	 * Ejecutar un INSERT por lotes de tamanoLote filas
+	 */
+	private void insertarPorLotes(String sql, int total, Fila fila) {
+		for (int desde = 0; desde < total; desde += tamanoLote) {
+			int base = desde;
+			int cantidad = Math.min(tamanoLote, total - desde);
+			jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+				@Override
+				public void setValues(PreparedStatement ps, int i) throws SQLException {
+					fila.asignar(ps, base + i);
+				}
+
+				@Override
+				public int getBatchSize() {
+					return cantidad;
+				}
+			});
+		}
+	}
+
+	@FunctionalInterface
+	private interface Fila {
+		void asignar(PreparedStatement ps, int indice) throws SQLException;
+	}
+}
@@ -1,6 +1,12 @@
 package edu.com.co.Proyecto.Final.Controllers;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -8,16 +14,43 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import edu.com.co.Proyecto.Final.Model.DetalleProducto;
+import edu.com.co.Proyecto.Final.Model.EstadisticasPanel;
+import edu.com.co.Proyecto.Final.Model.FiltroResenas;
+import edu.com.co.Proyecto.Final.Model.PaginaProductos;
+import edu.com.co.Proyecto.Final.Model.PaginaResenas;
+import edu.com.co.Proyecto.Final.Model.ResultadoImportacion;
 import edu.com.co.Proyecto.Final.Model.producto;
+import edu.com.co.Proyecto.Final.Service.detalleProductoService;
+import edu.com.co.Proyecto.Final.Service.estadisticasService;
+import edu.com.co.Proyecto.Final.Service.importacionProductosService;
+import edu.com.co.Proyecto.Final.Service.importacionProductosService.Formato;
 import edu.com.co.Proyecto.Final.Service.productoService;
 import edu.com.co.Proyecto.Final.Service.resenaService;
 
+import jakarta.servlet.http.HttpServletRequest;
+
 /**
  * Controlador para rutas administrativas
  * Requiere rol ADMIN
@@ -28,12 +61,52 @@ import edu.com.co.Proyecto.Final.Service.resenaService;
 @Tag(name = "Administrador", description = "API para gestión administrativa - Panel de control, productos y reseñas")
 public class AdminController {
 	
+	private static final Logger log = LoggerFactory.getLogger(AdminController.class);
+	
 	@Autowired
 	private productoService productoService;
 	
 	@Autowired
 	private resenaService resenaService;
 	
+	@Autowired
+	private estadisticasService estadisticasService;
+	
+	@Autowired
+	private detalleProductoService detalleProductoService;
+	
+	@Autowired
+	private importacionProductosService importacionProductosService;
+	
+	/**
+	 * Agregar al modelo una página del catálogo y sus datos de paginación
+	 */
+	private void agregarPaginaProductos(Model model, String orden, String cursor, Integer tamano) {
+		PaginaProductos pagina = productoService.obtenerPaginaProductos(orden, cursor, tamano);
+		model.addAttribute("productos", pagina.getProductos());
+		model.addAttribute("pagina", pagina);
+	}
+	
+	/**
+	 * Agregar al modelo la página de reseñas pedida para el detalle de un producto
+	 * Si los filtros no son válidos se muestra la primera página sin filtros junto con el error
+	 */
+	private void agregarPaginaResenas(Model model, DetalleProducto detalle, Integer calificacion, Boolean conComentario,
+									  LocalDate desde, LocalDate hasta, String orden, String cursor, Integer tamano) {
+		FiltroResenas filtro = new FiltroResenas(calificacion, Boolean.TRUE.equals(conComentario), desde, hasta,
+				PaginaResenas.Orden.desde(orden));
+		PaginaResenas pagina;
+		try {
+			pagina = resenaService.obtenerPaginaResenas(detalle, filtro, cursor, tamano);
+		} catch (IllegalArgumentException e) {
+			model.addAttribute("errorResenas", e.getMessage());
+			pagina = detalle.getPrimeraPaginaResenas();
+		}
+		model.addAttribute("resenas", pagina.getResenas());
+		model.addAttribute("paginaResenas", pagina);
+		model.addAttribute("filtroResenas", pagina.getFiltro());
+	}
+	
 	/**
 	 * Panel de control administrativo
 	 * Ruta: GET /admin/panel
@@ -42,17 +115,21 @@ public class AdminController {
 	@GetMapping("/panel")
 	@Operation(summary = "Panel de control administrativo", description = "Muestra el panel principal del administrador con estadísticas y gestión de productos")
 	@ApiResponse(responseCode = "200", description = "Panel cargado exitosamente")
-	public String controlPanel(Model model) {
+	public String controlPanel(
+			@RequestParam(required = false) @Parameter(description = "Criterio de orden: NOMBRE, PRECIO_ASC, PRECIO_DESC o CALIFICACION") String orden,
+			@RequestParam(required = false) @Parameter(description = "Cursor de la siguiente página") String cursor,
+			@RequestParam(required = false) @Parameter(description = "Productos por página (máximo 48)") Integer tamano,
+			Model model) {
 		try {
-			// Obtener estadísticas del sistema
-			long totalProductos = productoService.obtenerTodosProductos().size();
-			long totalResenas = resenaService.obtenerTodasResenas().size();
+			// Obtener estadísticas del sistema (consultas de agregación cacheadas)
+			EstadisticasPanel estadisticas = estadisticasService.obtenerEstadisticas();
 			
-			model.addAttribute("totalProductos", totalProductos);
-			model.addAttribute("totalResenas", totalResenas);
+			model.addAttribute("totalProductos", estadisticas.getTotalProductos());
+			model.addAttribute("totalResenas", estadisticas.getTotalResenas());
+			model.addAttribute("estadisticas", estadisticas);
 			
-			// Obtener lista de productos para mostrar
-			model.addAttribute("productos", productoService.obtenerTodosProductos());
+			// Obtener una página acotada de productos para la tabla
+			agregarPaginaProductos(model, orden, cursor, tamano);
 			
 		} catch (Exception e) {
 			model.addAttribute("error", "Error al cargar el panel: " + e.getMessage());
@@ -69,10 +146,14 @@ public class AdminController {
 	@GetMapping("/home")
 	@Operation(summary = "Página de inicio para administrador", description = "Muestra el inicio del administrador con la lista de todos los productos disponibles")
 	@ApiResponse(responseCode = "200", description = "Página cargada exitosamente")
-	public String adminHome(Model model) {
+	public String adminHome(
+			@RequestParam(required = false) @Parameter(description = "Criterio de orden: NOMBRE, PRECIO_ASC, PRECIO_DESC o CALIFICACION") String orden,
+			@RequestParam(required = false) @Parameter(description = "Cursor de la siguiente página") String cursor,
+			@RequestParam(required = false) @Parameter(description = "Productos por página (máximo 48)") Integer tamano,
+			Model model) {
 		try {
-			// Obtener todos los productos para mostrar
-			model.addAttribute("productos", productoService.obtenerTodosProductos());
+			// Obtener una página acotada del catálogo
+			agregarPaginaProductos(model, orden, cursor, tamano);
 		} catch (Exception e) {
 			model.addAttribute("error", "Error al cargar los productos: " + e.getMessage());
 		}
@@ -90,17 +171,26 @@ public class AdminController {
 		@ApiResponse(responseCode = "200", description = "Detalle obtenido exitosamente"),
 		@ApiResponse(responseCode = "404", description = "Producto no encontrado")
 	})
-	public String verProductoDetalle(@PathVariable @Parameter(description = "ID del producto") Long id, Model model) {
+	public String verProductoDetalle(
+			@PathVariable @Parameter(description = "ID del producto") Long id,
+			@RequestParam(required = false) @Parameter(description = "Filtrar por calificación (1 a 5 estrellas)") Integer calificacion,
+			@RequestParam(required = false) @Parameter(description = "Mostrar solo reseñas con comentario") Boolean conComentario,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @Parameter(description = "Fecha inicial (yyyy-MM-dd)") LocalDate desde,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @Parameter(description = "Fecha final (yyyy-MM-dd)") LocalDate hasta,
+			@RequestParam(required = false) @Parameter(description = "Orden de las reseñas: RECIENTES o RELEVANTES") String orden,
+			@RequestParam(required = false) @Parameter(description = "Cursor de la siguiente página de reseñas") String cursor,
+			@RequestParam(required = false) @Parameter(description = "Reseñas por página (máximo 50)") Integer tamano,
+			Model model) {
 		try {
-			var productoOpt = productoService.obtenerProductoPorId(id);
+			var detalleOpt = detalleProductoService.obtenerDetalle(id);
 			
-			if (productoOpt.isEmpty()) {
+			if (detalleOpt.isEmpty()) {
 				return "redirect:/admin/home?error=product_not_found";
 			}
 			
-			model.addAttribute("producto", productoOpt.get());
-			// Obtener reseñas del producto
-			model.addAttribute("resenas", resenaService.obtenerResenasPorProducto(id));
+			// Producto desde el cache de detalle y una página acotada de reseñas
+			model.addAttribute("producto", detalleOpt.get().getProducto());
+			agregarPaginaResenas(model, detalleOpt.get(), calificacion, conComentario, desde, hasta, orden, cursor, tamano);
 			return "admin/productoDetalle";
 			
 		} catch (Exception e) {
@@ -272,19 +362,26 @@ public class AdminController {
 		@ApiResponse(responseCode = "200", description = "Detalle obtenido exitosamente"),
 		@ApiResponse(responseCode = "404", description = "Producto no encontrado")
 	})
-	public String viewRecipe(@PathVariable @Parameter(description = "ID del producto") Long id, Model model) {
+	public String viewRecipe(
+			@PathVariable @Parameter(description = "ID del producto") Long id,
+			@RequestParam(required = false) @Parameter(description = "Filtrar por calificación (1 a 5 estrellas)") Integer calificacion,
+			@RequestParam(required = false) @Parameter(description = "Mostrar solo reseñas con comentario") Boolean conComentario,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @Parameter(description = "Fecha inicial (yyyy-MM-dd)") LocalDate desde,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @Parameter(description = "Fecha final (yyyy-MM-dd)") LocalDate hasta,
+			@RequestParam(required = false) @Parameter(description = "Orden de las reseñas: RECIENTES o RELEVANTES") String orden,
+			@RequestParam(required = false) @Parameter(description = "Cursor de la siguiente página de reseñas") String cursor,
+			@RequestParam(required = false) @Parameter(description = "Reseñas por página (máximo 50)") Integer tamano,
+			Model model) {
 		try {
-			var productoOpt = productoService.obtenerProductoPorId(id);
+			var detalleOpt = detalleProductoService.obtenerDetalle(id);
 			
-			if (productoOpt.isEmpty()) {
+			if (detalleOpt.isEmpty()) {
 				return "redirect:/admin/panel?error=recipe_not_found";
 			}
 			
-			producto producto = productoOpt.get();
-			model.addAttribute("producto", producto);
-			
-			// Obtener reseñas del producto usando el servicio
-			model.addAttribute("resenas", resenaService.obtenerResenasPorProducto(id));
+			// Producto desde el cache de detalle y una página acotada de reseñas
+			model.addAttribute("producto", detalleOpt.get().getProducto());
+			agregarPaginaResenas(model, detalleOpt.get(), calificacion, conComentario, desde, hasta, orden, cursor, tamano);
 			
 			return "admin/recipeDetail";
 			
@@ -303,29 +400,126 @@ public class AdminController {
 	@GetMapping("/buscar")
 	public String buscarProductos(
 			@RequestParam(required = false, defaultValue = "") String q,
+			@RequestParam(required = false) @Parameter(description = "Criterio de orden: NOMBRE, PRECIO_ASC, PRECIO_DESC o CALIFICACION") String orden,
+			@RequestParam(required = false) @Parameter(description = "Cursor de la siguiente página") String cursor,
+			@RequestParam(required = false) @Parameter(description = "Productos por página (máximo 48)") Integer tamano,
 			Model model) {
 		try {
 			if (q == null || q.trim().isEmpty()) {
-				model.addAttribute("productos", productoService.obtenerTodosProductos());
+				agregarPaginaProductos(model, orden, cursor, tamano);
 				model.addAttribute("busqueda", "");
 				model.addAttribute("sinResultados", false);
 			} else {
-				var resultados = productoService.buscarProductos(q.trim());
+				var resultados = productoService.buscarProductos(q.trim(), tamano);
 				model.addAttribute("productos", resultados);
+				model.addAttribute("limiteBusqueda", productoService.limiteBusqueda(tamano));
 				model.addAttribute("busqueda", q.trim());
 				model.addAttribute("sinResultados", resultados.isEmpty());
 				
-				if (!resultados.isEmpty()) {
-					System.out.println("✓ Búsqueda Admin encontró " + resultados.size() + " productos para: " + q);
-				} else {
-					System.out.println("⚠ Búsqueda Admin sin resultados para: " + q);
-				}
+				log.debug("Búsqueda admin \"{}\": {} productos", q, resultados.size());
 			}
 		} catch (Exception e) {
 			model.addAttribute("error", "Error al buscar: " + e.getMessage());
-			model.addAttribute("productos", productoService.obtenerTodosProductos());
+			model.addAttribute("productos", List.of());
 		}
 		
 		return "admin/buscar";
 	}
+	
+	/**
+	 * Métricas del cache de detalle de producto
+	 * Ruta: GET /admin/api/cache/detalle-producto
+	 * Retorna un JSON con aciertos, fallos, tasa de aciertos, desalojos y tamaño actual
+	 */
+	@GetMapping("/api/cache/detalle-producto")
+	@ResponseBody
+	@Operation(summary = "Métricas del cache de detalle", description = "Retorna las estadísticas de aciertos y fallos del cache de páginas de detalle de producto")
+	@ApiResponses(value = {
+		@ApiResponse(responseCode = "200", description = "Métricas obtenidas exitosamente")
+	})
+	public Map<String, Object> metricasCacheDetalle() {
+		CacheStats stats = detalleProductoService.obtenerEstadisticas();
+		
+		Map<String, Object> metricas = new LinkedHashMap<>();
+		metricas.put("aciertos", stats.hitCount());
+		metricas.put("fallos", stats.missCount());
+		metricas.put("tasaAciertos", stats.hitRate());
+		metricas.put("desalojos", stats.evictionCount());
+		metricas.put("tamano", detalleProductoService.obtenerTamano());
+		return metricas;
+	}
+	
+	/**
+	 * Importación masiva de productos
+	 * Ruta: POST /admin/api/productos/importar
+	 * Acepta un archivo multipart (campo "archivo") o el contenido directamente en el cuerpo
+	 * (recomendado para catálogos grandes: no tiene el límite de tamaño de multipart).
+	 * Los productos se identifican por nombre: los nuevos se crean y los existentes se actualizan.
+	 */
+	@PostMapping("/api/productos/importar")
+	@ResponseBody
+	@Operation(summary = "Importar productos", description = "Crea o actualiza productos en lote desde CSV (con encabezado) o JSON lines")
+	@ApiResponses(value = {
+		@ApiResponse(responseCode = "200", description = "Importación procesada; las filas inválidas se reportan en el resultado"),
+		@ApiResponse(responseCode = "400", description = "Formato no soportado o encabezado CSV inválido")
+	})
+	public ResponseEntity<Map<String, Object>> importarProductos(
+			@RequestParam(required = false) @Parameter(description = "Formato: csv o jsonl (por defecto según el tipo de contenido o la extensión)") String formato,
+			@RequestParam(required = false) @Parameter(description = "Archivo a importar; si no se envía se lee el cuerpo de la petición") MultipartFile archivo,
+			HttpServletRequest request) {
+		Map<String, Object> response = new HashMap<>();
+		
+		try {
+			Formato formatoEntrada = archivo != null
+					? Formato.resolver(formato, archivo.getContentType(), archivo.getOriginalFilename())
+					: Formato.resolver(formato, request.getContentType(), null);
+			
+			ResultadoImportacion resultado;
+			try (InputStream entrada = archivo != null ? archivo.getInputStream() : request.getInputStream()) {
+				resultado = importacionProductosService.importar(entrada, formatoEntrada);
+			}
+			
+			response.put("success", true);
+			response.put("resultado", resultado);
+			return ResponseEntity.ok(response);
+			
+		} catch (IllegalArgumentException e) {
+			response.put("success", false);
+			response.put("error", e.getMessage());
+			log.info("Importación rechazada: {}", e.getMessage());
+			return ResponseEntity.badRequest().body(response);
+		} catch (IOException e) {
+			response.put("success", false);
+			response.put("error", "Error al leer el archivo: " + e.getMessage());
+			log.error("Error leyendo la importación de productos", e);
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+		}
+	}
+	
+	/**
+	 * Exportación del catálogo completo
+	 * Ruta: GET /admin/api/productos/exportar?formato=csv|jsonl
+	 * Las filas se escriben a medida que se leen por ventanas de keyset, en el mismo formato que acepta la importación
+	 */
+	@GetMapping("/api/productos/exportar")
+	@Operation(summary = "Exportar productos", description = "Descarga todos los productos en CSV o JSON lines, en streaming")
+	@ApiResponses(value = {
+		@ApiResponse(responseCode = "200", description = "Catálogo exportado"),
+		@ApiResponse(responseCode = "400", description = "Formato no soportado")
+	})
+	public ResponseEntity<StreamingResponseBody> exportarProductos(
+			@RequestParam(defaultValue = "csv") @Parameter(description = "Formato: csv o jsonl") String formato) {
+		Formato formatoSalida;
+		try {
+			formatoSalida = Formato.resolver(formato, null, null);
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.badRequest().build();
+		}
+		
+		StreamingResponseBody cuerpo = salida -> importacionProductosService.exportar(salida, formatoSalida);
+		return ResponseEntity.ok()
+				.contentType(MediaType.parseMediaType(formatoSalida.getTipoContenido() + ";charset=UTF-8"))
+				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"productos." + formatoSalida.getExtension() + "\"")
+				.body(cuerpo);
+	}
 }
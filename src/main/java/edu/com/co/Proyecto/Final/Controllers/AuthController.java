@@ -4,7 +4,9 @@ import edu.com.co.Proyecto.Final.Model.JwtResponse;
 import edu.com.co.Proyecto.Final.Model.LoginRequest;
 import edu.com.co.Proyecto.Final.Model.usuario;
 import edu.com.co.Proyecto.Final.Security.JwtUtil;
-import edu.com.co.Proyecto.Final.Service.usuarioService;
+import edu.com.co.Proyecto.Final.Security.UsuarioActual;
+import edu.com.co.Proyecto.Final.Security.revocacionTokenService;
+import io.jsonwebtoken.Claims;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -49,7 +51,7 @@ public class AuthController {
 	private UserDetailsService userDetailsService;
 	
 	@Autowired
-	private usuarioService usuarioService;
+	private revocacionTokenService revocacionTokenService;
 	
 	/**
 	 * Endpoint para iniciar sesión y obtener un token JWT
@@ -177,14 +179,15 @@ public class AuthController {
 		try {
 			if (authHeader != null && authHeader.startsWith("Bearer ")) {
 				String token = authHeader.substring(7);
-				String username = jwtUtil.extractUsername(token);
+				Claims claims = jwtUtil.extractAllClaims(token);
+				String username = claims.getSubject();
 				UserDetails userDetails = userDetailsService.loadUserByUsername(username);
 				
-				if (jwtUtil.validateToken(token, userDetails)) {
+				if (jwtUtil.isTokenVigente(claims) && jwtUtil.validateToken(claims, userDetails)) {
 					Map<String, Object> response = new HashMap<>();
 					response.put("valid", true);
 					response.put("username", username);
-					response.put("roles", jwtUtil.extractRoles(token));
+					response.put("roles", claims.get("roles", String.class));
 					return ResponseEntity.ok(response);
 				}
 			}
@@ -235,22 +238,65 @@ public class AuthController {
 		)
 	})
 	public ResponseEntity<?> getCurrentUser(
+		@Parameter(hidden = true) @UsuarioActual usuario user) {
+		if (user != null) {
+			Map<String, Object> userInfo = new HashMap<>();
+			userInfo.put("id", user.getIdUsuario());
+			userInfo.put("username", user.getNombreUsuario());
+			userInfo.put("email", user.getEmailUsuario());
+			userInfo.put("telefono", user.getNumeroTelefonoUsuario());
+			userInfo.put("descripcion", user.getDescripcionUsuario());
+			userInfo.put("rol", user.getRol().getNombreRol());
+			
+			return ResponseEntity.ok(userInfo);
+		}
+		
+		return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("No autenticado");
+	}
+	
+	/**
+	 * Endpoint para revocar todos los tokens JWT del usuario autenticado
+	 * POST /api/auth/logout
+	 */
+	@PostMapping("/logout")
+	@Operation(
+		summary = "Cerrar sesión en todos los dispositivos",
+		description = "Revoca todos los tokens JWT emitidos para el usuario autenticado incrementando su versión de token",
+		security = @SecurityRequirement(name = "bearerAuth")
+	)
+	@ApiResponses(value = {
+		@ApiResponse(
+			responseCode = "200",
+			description = "Tokens revocados exitosamente",
+			content = @Content(
+				mediaType = "application/json",
+				examples = @ExampleObject(
+					value = "{\"message\":\"Tokens revocados\",\"username\":\"user1\"}"
+				)
+			)
+		),
+		@ApiResponse(
+			responseCode = "401",
+			description = "No autenticado - Token no válido o no proporcionado",
+			content = @Content(
+				mediaType = "application/json",
+				examples = @ExampleObject(
+					value = "\"No autenticado\""
+				)
+			)
+		)
+	})
+	public ResponseEntity<?> logout(
 		@Parameter(hidden = true) Authentication authentication) {
-		if (authentication != null && authentication.isAuthenticated()) {
+		if (authentication != null && authentication.isAuthenticated()
+			&& !authentication.getName().equals("anonymousUser")) {
 			String username = authentication.getName();
-			usuario user = usuarioService.buscarPorNombreUsuario(username);
+			revocacionTokenService.revocarTokens(username);
 			
-			if (user != null) {
-				Map<String, Object> userInfo = new HashMap<>();
-				userInfo.put("id", user.getIdUsuario());
-				userInfo.put("username", user.getNombreUsuario());
-				userInfo.put("email", user.getEmailUsuario());
-				userInfo.put("telefono", user.getNumeroTelefonoUsuario());
-				userInfo.put("descripcion", user.getDescripcionUsuario());
-				userInfo.put("rol", user.getRol().getNombreRol());
-				
-				return ResponseEntity.ok(userInfo);
-			}
+			Map<String, Object> response = new HashMap<>();
+			response.put("message", "Tokens revocados");
+			response.put("username", username);
+			return ResponseEntity.ok(response);
 		}
 		
 		return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("No autenticado");
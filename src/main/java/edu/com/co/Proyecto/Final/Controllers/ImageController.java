@@ -1,5 +1,8 @@
 package edu.com.co.Proyecto.Final.Controllers;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -8,23 +11,40 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.ResourceLoader;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
+import edu.com.co.Proyecto.Final.Config.FiltroMuestreoLog;
+import edu.com.co.Proyecto.Final.Service.imagenService;
+import edu.com.co.Proyecto.Final.Service.variantesImagenService;
+import edu.com.co.Proyecto.Final.Service.variantesImagenService.Variante;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Controlador unificado para gestionar imágenes
@@ -38,8 +58,20 @@ import java.util.UUID;
 @Tag(name = "Gestión de Imágenes", description = "Endpoints para subir y servir imágenes del sistema")
 public class ImageController {
 	
+	private static final Logger log = LoggerFactory.getLogger(ImageController.class);
+	
+	@Autowired
+	private imagenService imagenService;
+	
+	@Autowired
+	private variantesImagenService variantesImagenService;
+	
 	@Autowired
-	private ResourceLoader resourceLoader;
+	private MeterRegistry meterRegistry;
+	
+	// Bytes de las imágenes aceptadas y cantidad de subidas rechazadas
+	private DistributionSummary bytesSubidos;
+	private Counter subidasRechazadas;
 	
 	// Ruta donde se guardarán las imágenes
 	private static final String UPLOAD_DIR = "src/main/resources/static/imagenes/";
@@ -48,6 +80,40 @@ public class ImageController {
 	private static final String[] ALLOWED_EXTENSIONS = {"jpg", "jpeg", "png", "gif", "webp", "svg"};
 	private static final long MAX_FILE_SIZE = 5 * 1024 * 1024; // 5MB
 	
+	// Buffer fijo para copiar la subida a disco: la memoria por request no depende del tamaño del archivo
+	private static final int BUFFER_SIZE = 8 * 1024;
+	// Bytes iniciales que se inspeccionan para reconocer el formato (magic bytes)
+	private static final int SNIFF_SIZE = 512;
+	
+	private static final byte[] MAGIC_JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+	private static final byte[] MAGIC_PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+	private static final byte[] MAGIC_GIF87 = {'G', 'I', 'F', '8', '7', 'a'};
+	private static final byte[] MAGIC_GIF89 = {'G', 'I', 'F', '8', '9', 'a'};
+	private static final byte[] MAGIC_RIFF = {'R', 'I', 'F', 'F'};
+	private static final byte[] MAGIC_WEBP = {'W', 'E', 'B', 'P'};
+	
+	// Las imágenes se revalidan con ETag/Last-Modified, así que una hora de cache es segura
+	private static final CacheControl IMAGE_CACHE_CONTROL = CacheControl.maxAge(1, TimeUnit.HOURS).cachePublic();
+	
+	// Atributos de Tomcat para enviar archivos con sendfile en lugar de copiarlos por la JVM
+	private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+	private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+	private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+	private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+	// Por debajo de este tamaño la copia normal es igual de rápida (mismo umbral que el DefaultServlet)
+	private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+	
+	@PostConstruct
+	void registrarMetricas() {
+		bytesSubidos = DistributionSummary.builder("imagenes.subidas.bytes")
+				.description("Tamaño de las imágenes subidas")
+				.baseUnit("bytes")
+				.register(meterRegistry);
+		subidasRechazadas = Counter.builder("imagenes.subidas.rechazadas")
+				.description("Subidas rechazadas por tamaño, extensión o contenido")
+				.register(meterRegistry);
+	}
+	
 	// ==================== SUBIDA DE IMÁGENES ====================
 	
 	/**
@@ -102,7 +168,8 @@ public class ImageController {
 			if (file.isEmpty()) {
 				response.put("success", false);
 				response.put("error", "El archivo está vacío");
-				System.out.println("✗ Intento de subida: archivo vacío");
+				log.info("Subida rechazada: archivo vacío");
+				subidasRechazadas.increment();
 				return ResponseEntity.badRequest().body(response);
 			}
 			
@@ -110,7 +177,8 @@ public class ImageController {
 			if (file.getSize() > MAX_FILE_SIZE) {
 				response.put("success", false);
 				response.put("error", "El archivo excede el tamaño máximo de 5MB");
-				System.out.println("✗ Intento de subida: archivo > 5MB");
+				log.info("Subida rechazada: archivo de {} bytes supera 5MB", file.getSize());
+				subidasRechazadas.increment();
 				return ResponseEntity.badRequest().body(response);
 			}
 			
@@ -122,7 +190,8 @@ public class ImageController {
 			if (!isAllowedExtension(fileExtension)) {
 				response.put("success", false);
 				response.put("error", "Tipo de archivo no permitido. Use: jpg, jpeg, png, gif, webp, svg");
-				System.out.println("✗ Intento de subida: extensión no permitida - " + fileExtension);
+				log.info("Subida rechazada: extensión no permitida {}", fileExtension);
+				subidasRechazadas.increment();
 				return ResponseEntity.badRequest().body(response);
 			}
 			
@@ -130,14 +199,27 @@ public class ImageController {
 			String uniqueFileName = "img_" + UUID.randomUUID().toString() + "." + fileExtension;
 			
 			// Crear directorio si no existe
-			File uploadDir = new File(UPLOAD_DIR);
-			if (!uploadDir.exists()) {
-				uploadDir.mkdirs();
-			}
+			Path uploadDir = Paths.get(UPLOAD_DIR);
+			Files.createDirectories(uploadDir);
 			
-			// Guardar el archivo
-			Path filePath = Paths.get(UPLOAD_DIR + uniqueFileName);
-			Files.write(filePath, file.getBytes());
+			// Escribir primero a un temporal en el mismo directorio para que el movimiento final sea atómico
+			Path tempFile = Files.createTempFile(uploadDir, ".upload_", ".tmp");
+			try {
+				copiarValidandoContenido(file, tempFile, fileExtension);
+				moverAtomicamente(tempFile, uploadDir.resolve(uniqueFileName));
+				
+				// Preparar en segundo plano las variantes para el catálogo y el detalle
+				variantesImagenService.generarVariantes(uniqueFileName);
+			} catch (IllegalArgumentException e) {
+				response.put("success", false);
+				response.put("error", e.getMessage());
+				log.info("Subida rechazada: {}", e.getMessage());
+				subidasRechazadas.increment();
+				return ResponseEntity.badRequest().body(response);
+			} finally {
+				// Si el archivo ya se movió no queda nada que borrar
+				Files.deleteIfExists(tempFile);
+			}
 			
 			// Respuesta exitosa con la ruta relativa
 			response.put("success", true);
@@ -145,15 +227,15 @@ public class ImageController {
 			response.put("message", "Imagen subida exitosamente");
 			response.put("url", "/imagenes/" + uniqueFileName);
 			
-			System.out.println("✓ Imagen subida: " + uniqueFileName + " (tamaño: " + formatFileSize(file.getSize()) + ")");
+			bytesSubidos.record(file.getSize());
+			log.info("Imagen subida: {} ({})", uniqueFileName, formatFileSize(file.getSize()));
 			
 			return ResponseEntity.ok(response);
 			
 		} catch (IOException e) {
 			response.put("success", false);
 			response.put("error", "Error al guardar el archivo: " + e.getMessage());
-			System.out.println("✗ Error subiendo imagen: " + e.getMessage());
-			e.printStackTrace();
+			log.error("Error subiendo imagen", e);
 			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
 		}
 	}
@@ -168,7 +250,7 @@ public class ImageController {
 	@GetMapping("/imagenes/{nombreArchivo}")
 	@Operation(
 		summary = "Obtener imagen",
-		description = "Retorna una imagen almacenada en el servidor. Busca automáticamente en múltiples ubicaciones y determina el tipo MIME correcto"
+		description = "Retorna una imagen almacenada en el servidor. Busca automáticamente en múltiples ubicaciones y determina el tipo MIME correcto. Soporta ETag/Last-Modified (304) y peticiones Range (206)"
 	)
 	@ApiResponses(value = {
 		@ApiResponse(
@@ -180,6 +262,14 @@ public class ImageController {
 				@Content(mediaType = "image/gif")
 			}
 		),
+		@ApiResponse(
+			responseCode = "206",
+			description = "Fragmento de la imagen solicitado con el header Range"
+		),
+		@ApiResponse(
+			responseCode = "304",
+			description = "La imagen no cambió desde la versión que tiene el cliente (If-None-Match / If-Modified-Since)"
+		),
 		@ApiResponse(
 			responseCode = "400",
 			description = "Nombre de archivo inválido o inseguro",
@@ -197,59 +287,86 @@ public class ImageController {
 			required = true,
 			example = "img_123e4567-e89b-12d3-a456-426614174000.jpg"
 		)
-		@PathVariable String nombreArchivo) {
+		@PathVariable String nombreArchivo,
+		@Parameter(
+			description = "Variante redimensionada: miniatura (240px), tarjeta (640px) o detalle (1280px). Sin valor se sirve la original",
+			required = false,
+			example = "tarjeta"
+		)
+		@RequestParam(required = false) String variante,
+		@Parameter(hidden = true) HttpServletRequest request,
+		@Parameter(hidden = true) WebRequest webRequest) {
+		imagenService.ImagenResuelta original = null;
 		try {
-			System.out.println("=== Obteniendo imagen ===");
-			System.out.println("Buscando: " + nombreArchivo);
-			
 			// Validar que el nombre del archivo sea seguro (sin caracteres peligrosos)
 			if (nombreArchivo.contains("..") || nombreArchivo.contains("/") || nombreArchivo.contains("\\")) {
-				System.out.println("✗ ERROR: Nombre de archivo inválido");
+				log.warn(FiltroMuestreoLog.MUESTREO, "Nombre de archivo inválido: {}", nombreArchivo);
 				return ResponseEntity.badRequest().build();
 			}
 			
-			// Intentar múltiples rutas
-			String[] rutasIntento = {
-				"classpath:/static/imagenes/" + nombreArchivo,
-				"classpath:/imagenes/" + nombreArchivo,
-				"file:src/main/resources/static/imagenes/" + nombreArchivo
-			};
+			// Resolver la imagen (las ubicaciones se prueban solo la primera vez)
+			var imagenOpt = imagenService.resolver(nombreArchivo);
+			if (imagenOpt.isEmpty()) {
+				log.info(FiltroMuestreoLog.MUESTREO, "Imagen no encontrada: {}", nombreArchivo);
+				return ResponseEntity.notFound().build();
+			}
 			
-			Resource resource = null;
-			String rutaExitosa = null;
+			original = imagenOpt.get();
+			imagenService.ImagenResuelta imagen = original;
+			String nombreServido = nombreArchivo;
 			
-			for (String ruta : rutasIntento) {
-				System.out.println("  Intentando: " + ruta);
-				Resource temp = resourceLoader.getResource(ruta);
-				
-				if (temp.exists() && temp.isReadable()) {
-					resource = temp;
-					rutaExitosa = ruta;
-					System.out.println("  ✓ Encontrada en: " + ruta);
-					break;
+			// Variante redimensionada si se pidió y el formato lo admite; si no está lista se sirve la original
+			Variante varianteSolicitada = Variante.desde(variante);
+			if (varianteSolicitada != null && variantesImagenService.soportaVariantes(nombreArchivo)) {
+				var varianteOpt = variantesImagenService.obtenerVariante(imagen, varianteSolicitada);
+				if (varianteOpt.isPresent()) {
+					imagen = varianteOpt.get();
+					nombreServido = imagen.getRecurso().getFilename();
 				}
 			}
 			
-			// Verificar que el archivo existe y es legible
-			if (resource == null || !resource.exists() || !resource.isReadable()) {
-				System.out.println("✗ Imagen no encontrada: " + nombreArchivo);
-				return ResponseEntity.notFound().build();
+			MediaType mediaType = determinarMediaType(nombreServido);
+			
+			// Petición condicional (If-None-Match / If-Modified-Since): responder 304 sin cuerpo
+			if (webRequest.checkNotModified(imagen.getEtag(), imagen.getUltimaModificacion())) {
+				return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+						.eTag(imagen.getEtag())
+						.lastModified(imagen.getUltimaModificacion())
+						.cacheControl(IMAGE_CACHE_CONTROL)
+						.build();
 			}
 			
-			// Determinar el tipo de contenido
-			MediaType mediaType = determinarMediaType(nombreArchivo);
-			System.out.println("✓ Tipo MIME: " + mediaType);
+			// Archivos grandes completos: delegar la copia al contenedor con sendfile (zero-copy)
+			if (puedeUsarSendfile(request, imagen)) {
+				request.setAttribute(SENDFILE_FILENAME, imagen.getRecurso().getFile().getAbsolutePath());
+				request.setAttribute(SENDFILE_START, 0L);
+				request.setAttribute(SENDFILE_END, imagen.getLongitud());
+				return ResponseEntity.ok()
+						.contentType(mediaType)
+						.contentLength(imagen.getLongitud())
+						.eTag(imagen.getEtag())
+						.lastModified(imagen.getUltimaModificacion())
+						.cacheControl(IMAGE_CACHE_CONTROL)
+						.header(HttpHeaders.ACCEPT_RANGES, "bytes")
+						.build();
+			}
 			
-			// Retornar la imagen
-			System.out.println("✓ Retornando imagen exitosamente");
+			// Resto de casos: Spring escribe el recurso y atiende los Range con 206 Partial Content
 			return ResponseEntity.ok()
 					.contentType(mediaType)
-					.header("Cache-Control", "public, max-age=3600")
-					.body(resource);
+					.eTag(imagen.getEtag())
+					.lastModified(imagen.getUltimaModificacion())
+					.cacheControl(IMAGE_CACHE_CONTROL)
+					.header(HttpHeaders.ACCEPT_RANGES, "bytes")
+					.body(imagen.getRecurso());
 					
 		} catch (Exception e) {
-			System.out.println("✗ ERROR al obtener imagen: " + e.getMessage());
-			e.printStackTrace();
+			// El archivo pudo desaparecer después de cacheado: resolverlo de nuevo en la próxima petición
+			imagenService.invalidar(nombreArchivo);
+			if (original != null) {
+				variantesImagenService.invalidar(original.getHashContenido());
+			}
+			log.warn("Error al obtener la imagen {}: {}", nombreArchivo, e.getMessage());
 			return ResponseEntity.badRequest().build();
 		}
 	}
@@ -257,9 +374,110 @@ public class ImageController {
 	// ==================== MÉTODOS PRIVADOS ====================
 	
 	/**
-	 * Obtener la extensión de un archivo
+	 * Verificar si la respuesta puede enviarse con sendfile de Tomcat:
+	 * GET completo (sin Range) de un archivo en disco y suficientemente grande
+	 */
+	private boolean puedeUsarSendfile(HttpServletRequest request, imagenService.ImagenResuelta imagen) {
+		return Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))
+				&& "GET".equals(request.getMethod())
+				&& request.getHeader(HttpHeaders.RANGE) == null
+				&& imagen.getLongitud() >= SENDFILE_MIN_SIZE
+				&& imagen.getRecurso().isFile();
+	}
+	
+	/**
+	 * Copiar el archivo subido al temporal por bloques de tamaño fijo
+	 * Valida el formato real con los primeros bytes antes de escribir y corta la copia
+	 * si el contenido supera el tamaño máximo (sin confiar en el tamaño declarado)
+	 * 
+	 * @throws IllegalArgumentException si el contenido no coincide con la extensión o es demasiado grande
+	 */
+	private long copiarValidandoContenido(MultipartFile file, Path destino, String extension) throws IOException {
+		try (InputStream in = file.getInputStream();
+			 OutputStream out = Files.newOutputStream(destino)) {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			
+			// Leer la cabecera y reconocer el formato por sus magic bytes
+			int leidosCabecera = in.readNBytes(buffer, 0, SNIFF_SIZE);
+			String formatoDetectado = detectarFormatoImagen(buffer, leidosCabecera);
+			if (formatoDetectado == null || !formatoDetectado.equals(normalizarExtension(extension))) {
+				throw new IllegalArgumentException("El contenido del archivo no corresponde a una imagen ." + extension);
+			}
+			out.write(buffer, 0, leidosCabecera);
+			
+			long total = leidosCabecera;
+			int leidos;
+			while ((leidos = in.read(buffer)) != -1) {
+				total += leidos;
+				if (total > MAX_FILE_SIZE) {
+					throw new IllegalArgumentException("El archivo excede el tamaño máximo de 5MB");
+				}
+				out.write(buffer, 0, leidos);
+			}
+			return total;
+		}
+	}
+	
+	/**
+	 * Mover el temporal a su nombre definitivo de forma atómica
+	 * (si el sistema de archivos no lo soporta se hace un movimiento normal)
+	 */
+	private void moverAtomicamente(Path origen, Path destino) throws IOException {
+		try {
+			Files.move(origen, destino, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(origen, destino, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+	
+	/**
+	 * Reconocer el formato de imagen por los primeros bytes del contenido
+	 * 
+	 * @return extensión normalizada ("jpg", "png", "gif", "webp", "svg") o null si no es una imagen reconocida
+	 */
+	String detectarFormatoImagen(byte[] cabecera, int longitud) {
+		if (empiezaCon(cabecera, longitud, 0, MAGIC_JPEG)) {
+			return "jpg";
+		}
+		if (empiezaCon(cabecera, longitud, 0, MAGIC_PNG)) {
+			return "png";
+		}
+		if (empiezaCon(cabecera, longitud, 0, MAGIC_GIF87) || empiezaCon(cabecera, longitud, 0, MAGIC_GIF89)) {
+			return "gif";
+		}
+		if (empiezaCon(cabecera, longitud, 0, MAGIC_RIFF) && empiezaCon(cabecera, longitud, 8, MAGIC_WEBP)) {
+			return "webp";
+		}
+		
+		// SVG es texto: debe empezar (ignorando BOM y espacios) con una etiqueta XML y declarar <svg
+		String texto = new String(cabecera, 0, longitud, StandardCharsets.UTF_8).replace("\uFEFF", "").stripLeading();
+		if (texto.startsWith("<") && (texto.contains("<svg") || texto.startsWith("<?xml"))) {
+			return "svg";
+		}
+		return null;
+	}
+	
+	/**
+	 * Verificar si la cabecera contiene la firma indicada a partir de un desplazamiento
+	 */
+	private boolean empiezaCon(byte[] cabecera, int longitud, int desde, byte[] firma) {
+		if (longitud < desde + firma.length) {
+			return false;
+		}
+		return Arrays.equals(cabecera, desde, desde + firma.length, firma, 0, firma.length);
+	}
+	
+	/**
+	 * Normalizar extensiones equivalentes (jpeg -> jpg)
+	 */
+	private String normalizarExtension(String extension) {
+		return "jpeg".equals(extension) ? "jpg" : extension;
+	}
+	
+	/**
+	 * Obtener la extensión de un archivo (visible en el paquete para los benchmarks)
 	 */
-	private String getFileExtension(String filename) {
+	String getFileExtension(String filename) {
 		if (filename == null || !filename.contains(".")) {
 			return "";
 		}
@@ -269,7 +487,7 @@ public class ImageController {
 	/**
 	 * Validar si la extensión está permitida
 	 */
-	private boolean isAllowedExtension(String extension) {
+	boolean isAllowedExtension(String extension) {
 		for (String allowed : ALLOWED_EXTENSIONS) {
 			if (allowed.equals(extension)) {
 				return true;
@@ -281,7 +499,7 @@ public class ImageController {
 	/**
 	 * Determinar el tipo MIME basado en la extensión
 	 */
-	private MediaType determinarMediaType(String nombreArchivo) {
+	MediaType determinarMediaType(String nombreArchivo) {
 		String nombreLowercase = nombreArchivo.toLowerCase();
 		
 		if (nombreLowercase.endsWith(".jpg") || nombreLowercase.endsWith(".jpeg")) {
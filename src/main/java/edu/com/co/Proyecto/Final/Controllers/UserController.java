@@ -5,8 +5,9 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,15 +18,23 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
+import org.springframework.format.annotation.DateTimeFormat;
+import java.time.LocalDate;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import edu.com.co.Proyecto.Final.Model.DetalleProducto;
+import edu.com.co.Proyecto.Final.Model.FiltroResenas;
+import edu.com.co.Proyecto.Final.Model.PaginaProductos;
+import edu.com.co.Proyecto.Final.Model.PaginaResenas;
 import edu.com.co.Proyecto.Final.Model.usuario;
+import edu.com.co.Proyecto.Final.Security.UsuarioActual;
 import edu.com.co.Proyecto.Final.Service.usuarioService;
 import edu.com.co.Proyecto.Final.Service.resenaService;
 import edu.com.co.Proyecto.Final.Service.productoService;
+import edu.com.co.Proyecto.Final.Service.detalleProductoService;
 
-import java.util.Optional;
 
 /**
  * Controlador para rutas de usuario
@@ -37,6 +46,8 @@ import java.util.Optional;
 @Tag(name = "Usuario", description = "Gestión de perfil de usuario y visualización de productos (requiere rol USER o ADMIN)")
 public class UserController {
 	
+	private static final Logger log = LoggerFactory.getLogger(UserController.class);
+	
 	@Autowired
 	private usuarioService usuarioService;
 	
@@ -46,25 +57,36 @@ public class UserController {
 	@Autowired
 	private productoService productoService;
 	
+	@Autowired
+	private detalleProductoService detalleProductoService;
+	
 	/**
-	 * Obtener el usuario autenticado desde el nombre de usuario o email (OAuth2)
+	 * Agregar al modelo una página del catálogo y sus datos de paginación
 	 */
-	private usuario obtenerUsuarioAutenticado(Authentication authentication) {
-		if (authentication == null || !authentication.isAuthenticated()) {
-			return null;
-		}
-		
-		String identifier = authentication.getName();
-		
-		// Intentar buscar por nombre de usuario primero
-		Optional<usuario> usuarioOpt = usuarioService.obtenerUsuarioPorNombre(identifier);
-		
-		// Si no se encuentra, intentar buscar por email (para OAuth2)
-		if (usuarioOpt.isEmpty()) {
-			usuarioOpt = usuarioService.obtenerUsuarioPorEmail(identifier);
+	private void agregarPaginaProductos(Model model, String orden, String cursor, Integer tamano) {
+		PaginaProductos pagina = productoService.obtenerPaginaProductos(orden, cursor, tamano);
+		model.addAttribute("productos", pagina.getProductos());
+		model.addAttribute("pagina", pagina);
+	}
+	
+	/**
+	 * Agregar al modelo la página de reseñas pedida para el detalle de un producto
+	 * Si los filtros no son válidos se muestra la primera página sin filtros junto con el error
+	 */
+	private void agregarPaginaResenas(Model model, DetalleProducto detalle, Integer calificacion, Boolean conComentario,
+									  LocalDate desde, LocalDate hasta, String orden, String cursor, Integer tamano) {
+		FiltroResenas filtro = new FiltroResenas(calificacion, Boolean.TRUE.equals(conComentario), desde, hasta,
+				PaginaResenas.Orden.desde(orden));
+		PaginaResenas pagina;
+		try {
+			pagina = resenaService.obtenerPaginaResenas(detalle, filtro, cursor, tamano);
+		} catch (IllegalArgumentException e) {
+			model.addAttribute("errorResenas", e.getMessage());
+			pagina = detalle.getPrimeraPaginaResenas();
 		}
-		
-		return usuarioOpt.orElse(null);
+		model.addAttribute("resenas", pagina.getResenas());
+		model.addAttribute("paginaResenas", pagina);
+		model.addAttribute("filtroResenas", pagina.getFiltro());
 	}
 	
 	/**
@@ -75,13 +97,20 @@ public class UserController {
 	@GetMapping("/home")
 	@Operation(
 		summary = "Página de inicio del usuario",
-		description = "Muestra la página principal con todos los productos disponibles para el usuario autenticado"
+		description = "Muestra la página principal con el catálogo paginado por cursor y ordenado por nombre, precio o calificación"
 	)
 	@ApiResponse(responseCode = "200", description = "Página cargada exitosamente")
-	public String userHome(Model model) {
+	public String userHome(
+			@Parameter(description = "Criterio de orden: NOMBRE, PRECIO_ASC, PRECIO_DESC o CALIFICACION", required = false, example = "PRECIO_ASC")
+			@RequestParam(required = false) String orden,
+			@Parameter(description = "Cursor opaco de la siguiente página (devuelto por la página anterior)", required = false)
+			@RequestParam(required = false) String cursor,
+			@Parameter(description = "Cantidad de productos por página (máximo 48)", required = false, example = "12")
+			@RequestParam(required = false) Integer tamano,
+			Model model) {
 		try {
-			// Obtener todos los productos para mostrar
-			model.addAttribute("productos", productoService.obtenerTodosProductos());
+			// Obtener una página acotada del catálogo
+			agregarPaginaProductos(model, orden, cursor, tamano);
 		} catch (Exception e) {
 			model.addAttribute("error", "Error al cargar los productos: " + e.getMessage());
 		}
@@ -96,12 +125,19 @@ public class UserController {
 	@GetMapping("/productos")
 	@Operation(
 		summary = "Ver todos los productos",
-		description = "Lista todos los productos disponibles en el sistema"
+		description = "Lista los productos disponibles en el sistema, paginados por cursor"
 	)
 	@ApiResponse(responseCode = "200", description = "Lista de productos obtenida exitosamente")
-	public String verProductos(Model model) {
+	public String verProductos(
+			@Parameter(description = "Criterio de orden: NOMBRE, PRECIO_ASC, PRECIO_DESC o CALIFICACION", required = false, example = "PRECIO_ASC")
+			@RequestParam(required = false) String orden,
+			@Parameter(description = "Cursor opaco de la siguiente página (devuelto por la página anterior)", required = false)
+			@RequestParam(required = false) String cursor,
+			@Parameter(description = "Cantidad de productos por página (máximo 48)", required = false, example = "12")
+			@RequestParam(required = false) Integer tamano,
+			Model model) {
 		try {
-			model.addAttribute("productos", productoService.obtenerTodosProductos());
+			agregarPaginaProductos(model, orden, cursor, tamano);
 		} catch (Exception e) {
 			model.addAttribute("error", "Error al cargar los productos: " + e.getMessage());
 		}
@@ -116,7 +152,7 @@ public class UserController {
 	@GetMapping("/producto/{id}")
 	@Operation(
 		summary = "Ver detalle de producto",
-		description = "Muestra los detalles completos de un producto incluyendo sus reseñas"
+		description = "Muestra los detalles de un producto con una página de sus reseñas, filtrable por calificación, comentario y rango de fechas"
 	)
 	@ApiResponses(value = {
 		@ApiResponse(responseCode = "200", description = "Detalle del producto cargado"),
@@ -124,17 +160,32 @@ public class UserController {
 	})
 	public String verProductoDetalle(
 		@Parameter(description = "ID del producto", required = true, example = "1")
-		@PathVariable Long id, Model model) {
+		@PathVariable Long id,
+		@Parameter(description = "Filtrar por calificación (1 a 5 estrellas)", required = false, example = "5")
+		@RequestParam(required = false) Integer calificacion,
+		@Parameter(description = "Mostrar solo reseñas con comentario", required = false, example = "true")
+		@RequestParam(required = false) Boolean conComentario,
+		@Parameter(description = "Fecha inicial de creación (inclusive, yyyy-MM-dd)", required = false, example = "2025-01-01")
+		@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+		@Parameter(description = "Fecha final de creación (inclusive, yyyy-MM-dd)", required = false, example = "2025-12-31")
+		@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+		@Parameter(description = "Orden de las reseñas: RECIENTES o RELEVANTES", required = false, example = "RELEVANTES")
+		@RequestParam(required = false) String orden,
+		@Parameter(description = "Cursor opaco de la siguiente página de reseñas", required = false)
+		@RequestParam(required = false) String cursor,
+		@Parameter(description = "Cantidad de reseñas por página (máximo 50)", required = false, example = "10")
+		@RequestParam(required = false) Integer tamano,
+		Model model) {
 		try {
-			var productoOpt = productoService.obtenerProductoPorId(id);
+			var detalleOpt = detalleProductoService.obtenerDetalle(id);
 			
-			if (productoOpt.isEmpty()) {
+			if (detalleOpt.isEmpty()) {
 				return "redirect:/user/productos?error=product_not_found";
 			}
 			
-			model.addAttribute("producto", productoOpt.get());
-			// Obtener reseñas del producto
-			model.addAttribute("resenas", resenaService.obtenerResenasPorProducto(id));
+			// Producto desde el cache de detalle y una página acotada de reseñas
+			model.addAttribute("producto", detalleOpt.get().getProducto());
+			agregarPaginaResenas(model, detalleOpt.get(), calificacion, conComentario, desde, hasta, orden, cursor, tamano);
 			return "user/productoDetalle";
 			
 		} catch (Exception e) {
@@ -154,15 +205,13 @@ public class UserController {
 		description = "Muestra el perfil completo del usuario autenticado incluyendo sus reseñas"
 	)
 	@ApiResponse(responseCode = "200", description = "Perfil cargado exitosamente")
-	public String userProfile(Model model, @Parameter(hidden = true) Authentication authentication) {
+	public String userProfile(Model model, @Parameter(hidden = true) @UsuarioActual usuario usuarioActual) {
 		try {
-			usuario usuarioActual = obtenerUsuarioAutenticado(authentication);
-			
 			if (usuarioActual != null) {
 				model.addAttribute("usuario", usuarioActual);
 				
-				// Obtener reseñas del usuario usando el servicio
-				var resenas = resenaService.obtenerResenasPorUsuario(usuarioActual.getIdUsuario());
+				// Resumen de las reseñas del usuario con el nombre de cada producto en una sola consulta
+				var resenas = resenaService.obtenerResenasPerfil(usuarioActual.getIdUsuario());
 				model.addAttribute("resenas", resenas);
 				model.addAttribute("totalResenas", resenas.size());
 			}
@@ -183,10 +232,8 @@ public class UserController {
 		description = "Muestra el formulario para editar el perfil del usuario autenticado"
 	)
 	@ApiResponse(responseCode = "200", description = "Formulario cargado exitosamente")
-	public String editProfileForm(Model model, @Parameter(hidden = true) Authentication authentication) {
+	public String editProfileForm(Model model, @Parameter(hidden = true) @UsuarioActual usuario usuarioActual) {
 		try {
-			usuario usuarioActual = obtenerUsuarioAutenticado(authentication);
-			
 			if (usuarioActual != null) {
 				model.addAttribute("usuario", usuarioActual);
 			}
@@ -219,11 +266,9 @@ public class UserController {
 			@Parameter(description = "Descripción del usuario (máximo 500 caracteres)", required = false)
 			@RequestParam(required = false) String descripcionUsuario,
 			Model model,
-			@Parameter(hidden = true) Authentication authentication) {
+			@Parameter(hidden = true) @UsuarioActual usuario usuarioActual) {
 		
 		try {
-			usuario usuarioActual = obtenerUsuarioAutenticado(authentication);
-			
 			if (usuarioActual == null) {
 				return "redirect:/login";
 			}
@@ -236,21 +281,20 @@ public class UserController {
 				descripcionUsuario
 			);
 			
-			System.out.println("✓ Perfil actualizado exitosamente para usuario: " + usuarioActual.getNombreUsuario());
+			log.info("Perfil actualizado: {}", usuarioActual.getNombreUsuario());
 			return "redirect:/user/profile?success=profile_updated";
 			
 		} catch (IllegalArgumentException e) {
 			// Errores de validación del servicio
-			System.out.println("✗ Error de validación: " + e.getMessage());
+			log.debug("Perfil no actualizado: {}", e.getMessage());
 			model.addAttribute("error", e.getMessage());
-			model.addAttribute("usuario", obtenerUsuarioAutenticado(authentication));
+			model.addAttribute("usuario", usuarioActual);
 			return "user/editProfile";
 		} catch (Exception e) {
 			// Errores inesperados
-			System.out.println("✗ Error al actualizar perfil: " + e.getMessage());
-			e.printStackTrace();
+			log.error("Error al actualizar el perfil", e);
 			model.addAttribute("error", "Error al actualizar el perfil. Por favor, intenta nuevamente.");
-			model.addAttribute("usuario", obtenerUsuarioAutenticado(authentication));
+			model.addAttribute("usuario", usuarioActual);
 			return "user/editProfile";
 		}
 	}
@@ -273,7 +317,7 @@ public class UserController {
 	})
 	public String newReviewForm(
 		@Parameter(description = "ID del producto a reseñar", required = true, example = "1")
-		@PathVariable Long productoId, Model model, @Parameter(hidden = true) Authentication authentication) {
+		@PathVariable Long productoId, Model model, @Parameter(hidden = true) @UsuarioActual usuario usuarioActual) {
 		try {
 			var productoOpt = productoService.obtenerProductoPorId(productoId);
 			
@@ -281,8 +325,6 @@ public class UserController {
 				return "redirect:/user/home?error=product_not_found";
 			}
 			
-			usuario usuarioActual = obtenerUsuarioAutenticado(authentication);
-			
 			if (usuarioActual == null) {
 				return "redirect:/login";
 			}
@@ -325,39 +367,32 @@ public class UserController {
 			@Parameter(description = "Comentario opcional sobre el producto", required = false, example = "Excelente producto, muy recomendado")
 			@RequestParam(required = false) String comentarioResena,
 			Model model,
-			@Parameter(hidden = true) Authentication authentication) {
+			@Parameter(hidden = true) @UsuarioActual usuario usuarioActual) {
 		
 		try {
-			usuario usuarioActual = obtenerUsuarioAutenticado(authentication);
-			
 			if (usuarioActual == null) {
 				return "redirect:/login";
 			}
 			
-			// Verificar que el producto existe
-			if (productoService.obtenerProductoPorId(productoId).isEmpty()) {
-				return "redirect:/user/home?error=product_not_found";
-			}
-			
-			// Verificar si ya existe una reseña del usuario para este producto
-			var resenaExistente = resenaService.obtenerResenaUsuarioProducto(usuarioActual.getIdUsuario(), productoId);
-			if (resenaExistente.isPresent()) {
-				// Redirigir al formulario de edición
-				return "redirect:/user/reviews/edit/" + resenaExistente.get().getIdResena() + "?info=review_exists";
-			}
-			
-			// Crear reseña usando el servicio (valida todo)
+			// Crear reseña usando el servicio (valida todo; la restricción única detecta reseñas duplicadas)
 			resenaService.crearResena(usuarioActual.getIdUsuario(), productoId, calificacion, comentarioResena);
 			
-			System.out.println("✓ Reseña creada exitosamente para producto " + productoId);
+			log.debug("Reseña creada para el producto {}", productoId);
 			return "redirect:/user/producto/" + productoId + "?success=review_created";
 			
 		} catch (IllegalArgumentException e) {
-			System.out.println("✗ Error de validación al crear reseña: " + e.getMessage());
+			// Si el usuario ya había reseñado el producto, redirigir al formulario de edición
+			if (usuarioActual != null) {
+				var resenaExistente = resenaService.obtenerResenaUsuarioProducto(usuarioActual.getIdUsuario(), productoId);
+				if (resenaExistente.isPresent()) {
+					return "redirect:/user/reviews/edit/" + resenaExistente.get().getIdResena() + "?info=review_exists";
+				}
+			}
+			
+			log.debug("Reseña rechazada para el producto {}: {}", productoId, e.getMessage());
 			return "redirect:/user/reviews/new/" + productoId + "?error=" + e.getMessage();
 		} catch (Exception e) {
-			System.out.println("✗ Error al crear reseña: " + e.getMessage());
-			e.printStackTrace();
+			log.error("Error al crear la reseña del producto {}", productoId, e);
 			return "redirect:/user/reviews/new/" + productoId + "?error=creation_failed";
 		}
 	}
@@ -377,16 +412,15 @@ public class UserController {
 	})
 	public String editReviewForm(
 		@Parameter(description = "ID de la reseña a editar", required = true, example = "1")
-		@PathVariable Long resenaId, Model model, @Parameter(hidden = true) Authentication authentication) {
+		@PathVariable Long resenaId, Model model, @Parameter(hidden = true) @UsuarioActual usuario usuarioActual) {
 		try {
-			var resenaOpt = resenaService.obtenerResenaPorId(resenaId);
+			// La reseña y su producto (que muestra el formulario) en un solo SELECT
+			var resenaOpt = resenaService.obtenerResenaConProducto(resenaId);
 			
 			if (resenaOpt.isEmpty()) {
 				return "redirect:/user/profile?error=review_not_found";
 			}
 			
-			usuario usuarioActual = obtenerUsuarioAutenticado(authentication);
-			
 			if (usuarioActual == null) {
 				return "redirect:/login";
 			}
@@ -427,11 +461,9 @@ public class UserController {
 			@Parameter(description = "Nuevo comentario opcional sobre el producto", required = false, example = "Actualicé mi opinión, sigue siendo muy bueno")
 			@RequestParam(required = false) String comentarioResena,
 			Model model,
-			@Parameter(hidden = true) Authentication authentication) {
+			@Parameter(hidden = true) @UsuarioActual usuario usuarioActual) {
 		
 		try {
-			usuario usuarioActual = obtenerUsuarioAutenticado(authentication);
-			
 			if (usuarioActual == null) {
 				return "redirect:/login";
 			}
@@ -479,10 +511,8 @@ public class UserController {
 	})
 	public String deleteReview(
 		@Parameter(description = "ID de la reseña a eliminar", required = true, example = "1")
-		@PathVariable Long resenaId, @Parameter(hidden = true) Authentication authentication) {
+		@PathVariable Long resenaId, @Parameter(hidden = true) @UsuarioActual usuario usuarioActual) {
 		try {
-			usuario usuarioActual = obtenerUsuarioAutenticado(authentication);
-			
 			if (usuarioActual == null) {
 				return "redirect:/login";
 			}
@@ -515,7 +545,7 @@ public class UserController {
 	@GetMapping("/products/{productoId}")
 	@Operation(
 		summary = "Ver detalle de producto con reseñas",
-		description = "Muestra el detalle completo de un producto incluyendo todas sus reseñas y el total de reseñas"
+		description = "Muestra el detalle de un producto con una página filtrable de sus reseñas y el total de reseñas"
 	)
 	@ApiResponses(value = {
 		@ApiResponse(responseCode = "200", description = "Detalle del producto con reseñas cargado exitosamente"),
@@ -523,20 +553,34 @@ public class UserController {
 	})
 	public String viewProductDetail(
 		@Parameter(description = "ID del producto a visualizar", required = true, example = "1")
-		@PathVariable Long productoId, Model model) {
+		@PathVariable Long productoId,
+		@Parameter(description = "Filtrar por calificación (1 a 5 estrellas)", required = false, example = "5")
+		@RequestParam(required = false) Integer calificacion,
+		@Parameter(description = "Mostrar solo reseñas con comentario", required = false, example = "true")
+		@RequestParam(required = false) Boolean conComentario,
+		@Parameter(description = "Fecha inicial de creación (inclusive, yyyy-MM-dd)", required = false, example = "2025-01-01")
+		@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+		@Parameter(description = "Fecha final de creación (inclusive, yyyy-MM-dd)", required = false, example = "2025-12-31")
+		@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+		@Parameter(description = "Orden de las reseñas: RECIENTES o RELEVANTES", required = false, example = "RELEVANTES")
+		@RequestParam(required = false) String orden,
+		@Parameter(description = "Cursor opaco de la siguiente página de reseñas", required = false)
+		@RequestParam(required = false) String cursor,
+		@Parameter(description = "Cantidad de reseñas por página (máximo 50)", required = false, example = "10")
+		@RequestParam(required = false) Integer tamano,
+		Model model) {
 		try {
-			var productoOpt = productoService.obtenerProductoPorId(productoId);
+			var detalleOpt = detalleProductoService.obtenerDetalle(productoId);
 			
-			if (productoOpt.isEmpty()) {
+			if (detalleOpt.isEmpty()) {
 				return "redirect:/user/home?error=product_not_found";
 			}
 			
-			model.addAttribute("producto", productoOpt.get());
-			
-			// Obtener reseñas del producto usando el servicio
-			var resenas = resenaService.obtenerResenasPorProducto(productoId);
-			model.addAttribute("resenas", resenas);
-			model.addAttribute("totalResenas", resenas.size());
+			// Producto desde el cache de detalle y una página acotada de reseñas
+			var detalle = detalleOpt.get();
+			model.addAttribute("producto", detalle.getProducto());
+			model.addAttribute("totalResenas", detalle.getTotalResenas());
+			agregarPaginaResenas(model, detalle, calificacion, conComentario, desde, hasta, orden, cursor, tamano);
 			
 			return "user/productDetail";
 			
@@ -555,7 +599,7 @@ public class UserController {
 	@GetMapping("/buscar")
 	@Operation(
 		summary = "Buscar productos",
-		description = "Busca productos por nombre, descripción o ingredientes. Si no se proporciona término de búsqueda, muestra todos los productos"
+		description = "Busca productos por nombre, descripción o ingredientes. Si no se proporciona término de búsqueda, muestra el catálogo paginado"
 	)
 	@ApiResponses(value = {
 		@ApiResponse(responseCode = "200", description = "Resultados de búsqueda obtenidos exitosamente")
@@ -563,27 +607,30 @@ public class UserController {
 	public String buscarProductos(
 			@Parameter(description = "Término de búsqueda (nombre, descripción o ingredientes)", required = false, example = "chocolate")
 			@RequestParam(required = false, defaultValue = "") String q,
+			@Parameter(description = "Criterio de orden: NOMBRE, PRECIO_ASC, PRECIO_DESC o CALIFICACION", required = false, example = "PRECIO_ASC")
+			@RequestParam(required = false) String orden,
+			@Parameter(description = "Cursor opaco de la siguiente página (devuelto por la página anterior)", required = false)
+			@RequestParam(required = false) String cursor,
+			@Parameter(description = "Cantidad de productos por página (máximo 48)", required = false, example = "12")
+			@RequestParam(required = false) Integer tamano,
 			Model model) {
 		try {
 			if (q == null || q.trim().isEmpty()) {
-				model.addAttribute("productos", productoService.obtenerTodosProductos());
+				agregarPaginaProductos(model, orden, cursor, tamano);
 				model.addAttribute("busqueda", "");
 				model.addAttribute("sinResultados", false);
 			} else {
-				var resultados = productoService.buscarProductos(q.trim());
+				var resultados = productoService.buscarProductos(q.trim(), tamano);
 				model.addAttribute("productos", resultados);
+				model.addAttribute("limiteBusqueda", productoService.limiteBusqueda(tamano));
 				model.addAttribute("busqueda", q.trim());
 				model.addAttribute("sinResultados", resultados.isEmpty());
 				
-				if (!resultados.isEmpty()) {
-					System.out.println("✓ Búsqueda encontró " + resultados.size() + " productos para: " + q);
-				} else {
-					System.out.println("⚠ Búsqueda sin resultados para: " + q);
-				}
+				log.debug("Búsqueda \"{}\": {} productos", q, resultados.size());
 			}
 		} catch (Exception e) {
 			model.addAttribute("error", "Error al buscar: " + e.getMessage());
-			model.addAttribute("productos", productoService.obtenerTodosProductos());
+			model.addAttribute("productos", List.of());
 		}
 		
 		return "user/buscar";
@@ -609,14 +656,14 @@ public class UserController {
 		@Parameter(description = "ID del producto para ordenar", required = true, example = "1")
 		@PathVariable Long productoId) {
 		try {
-			var productoOpt = productoService.obtenerProductoPorId(productoId);
+			var detalleOpt = detalleProductoService.obtenerDetalle(productoId);
 			
-			if (productoOpt.isEmpty()) {
+			if (detalleOpt.isEmpty()) {
 				return ResponseEntity.status(HttpStatus.NOT_FOUND)
 					.body(Map.of("error", "Producto no encontrado"));
 			}
 			
-			var producto = productoOpt.get();
+			var producto = detalleOpt.get().getProducto();
 			
 			// Número de WhatsApp centralizado (puede venir de configuración o BD)
 			String numeroWhatsApp = "573174865490";
@@ -0,0 +1,40 @@
+package edu.com.co.Proyecto.Final.Model;
+
+import java.util.List;
+
+/**
+ * Vista de solo lectura del detalle de un producto con la primera página de sus reseñas
+ * Es el valor que guarda el cache de detalle (ver detalleProductoService)
+ */
+public class DetalleProducto {
+
+	private final producto producto;
+	private final PaginaResenas primeraPaginaResenas;
+
+	public DetalleProducto(producto producto, PaginaResenas primeraPaginaResenas) {
+		this.producto = producto;
+		this.primeraPaginaResenas = primeraPaginaResenas;
+	}
+
+	public producto getProducto() {
+		return producto;
+	}
+
+	/**
+	 * Primera página de reseñas con el filtro por defecto (más recientes primero)
+	 */
+	public PaginaResenas getPrimeraPaginaResenas() {
+		return primeraPaginaResenas;
+	}
+
+	public List<ResenaResumen> getResenas() {
+		return primeraPaginaResenas.getResenas();
+	}
+
+	/**
+	 * Total de reseñas del producto, tomado de sus agregados (no del tamaño de la página)
+	 */
+	public int getTotalResenas() {
+		return producto.getCantidadResenas() != null ? producto.getCantidadResenas() : 0;
+	}
+}
@@ -0,0 +1,100 @@
+package edu.com.co.Proyecto.Final.Model;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * DTO con las estadísticas del panel de control administrativo
+ * Se calcula con consultas de agregación (COUNT, SUM, GROUP BY) y se cachea por un tiempo corto
+ */
+public class EstadisticasPanel {
+
+	/**
+	 * Cantidad de reseñas creadas en un día
+	 */
+	public static class ResenasPorDia {
+
+		private final LocalDate fecha;
+		private final long cantidad;
+
+		public ResenasPorDia(LocalDate fecha, long cantidad) {
+			this.fecha = fecha;
+			this.cantidad = cantidad;
+		}
+
+		public LocalDate getFecha() {
+			return fecha;
+		}
+
+		public long getCantidad() {
+			return cantidad;
+		}
+	}
+
+	private long totalProductos;
+	private long totalResenas;
+	private long totalUsuarios;
+	private double promedioCalificacion;
+	private List<ResenasPorDia> resenasPorDia;
+	private List<producto> productosMejorCalificados;
+
+	public EstadisticasPanel() {}
+
+	public EstadisticasPanel(long totalProductos, long totalResenas, long totalUsuarios, double promedioCalificacion,
+							 List<ResenasPorDia> resenasPorDia, List<producto> productosMejorCalificados) {
+		this.totalProductos = totalProductos;
+		this.totalResenas = totalResenas;
+		this.totalUsuarios = totalUsuarios;
+		this.promedioCalificacion = promedioCalificacion;
+		this.resenasPorDia = resenasPorDia;
+		this.productosMejorCalificados = productosMejorCalificados;
+	}
+
+	public long getTotalProductos() {
+		return totalProductos;
+	}
+
+	public void setTotalProductos(long totalProductos) {
+		this.totalProductos = totalProductos;
+	}
+
+	public long getTotalResenas() {
+		return totalResenas;
+	}
+
+	public void setTotalResenas(long totalResenas) {
+		this.totalResenas = totalResenas;
+	}
+
+	public long getTotalUsuarios() {
+		return totalUsuarios;
+	}
+
+	public void setTotalUsuarios(long totalUsuarios) {
+		this.totalUsuarios = totalUsuarios;
+	}
+
+	public double getPromedioCalificacion() {
+		return promedioCalificacion;
+	}
+
+	public void setPromedioCalificacion(double promedioCalificacion) {
+		this.promedioCalificacion = promedioCalificacion;
+	}
+
+	public List<ResenasPorDia> getResenasPorDia() {
+		return resenasPorDia;
+	}
+
+	public void setResenasPorDia(List<ResenasPorDia> resenasPorDia) {
+		this.resenasPorDia = resenasPorDia;
+	}
+
+	public List<producto> getProductosMejorCalificados() {
+		return productosMejorCalificados;
+	}
+
+	public void setProductosMejorCalificados(List<producto> productosMejorCalificados) {
+		this.productosMejorCalificados = productosMejorCalificados;
+	}
+}
@@ -0,0 +1,57 @@
+package edu.com.co.Proyecto.Final.Model;
+
+import java.time.LocalDate;
+
+/**
+ * Filtros aplicables a la lista de reseñas de un producto
+ * Todos son opcionales; el filtro por defecto muestra todas las reseñas, las más recientes primero
+ */
+public class FiltroResenas {
+
+	private final Integer calificacion;
+	private final boolean soloConComentario;
+	private final LocalDate desde;
+	private final LocalDate hasta;
+	private final PaginaResenas.Orden orden;
+
+	public FiltroResenas(Integer calificacion, boolean soloConComentario, LocalDate desde, LocalDate hasta,
+						 PaginaResenas.Orden orden) {
+		this.calificacion = calificacion;
+		this.soloConComentario = soloConComentario;
+		this.desde = desde;
+		this.hasta = hasta;
+		this.orden = orden != null ? orden : PaginaResenas.Orden.RECIENTES;
+	}
+
+	/**
+	 * Filtro sin restricciones, ordenado por fecha (el que se cachea con el detalle del producto)
+	 */
+	public static FiltroResenas porDefecto() {
+		return new FiltroResenas(null, false, null, null, PaginaResenas.Orden.RECIENTES);
+	}
+
+	public Integer getCalificacion() {
+		return calificacion;
+	}
+
+	public boolean isSoloConComentario() {
+		return soloConComentario;
+	}
+
+	public LocalDate getDesde() {
+		return desde;
+	}
+
+	public LocalDate getHasta() {
+		return hasta;
+	}
+
+	public PaginaResenas.Orden getOrden() {
+		return orden;
+	}
+
+	public boolean isPorDefecto() {
+		return calificacion == null && !soloConComentario && desde == null && hasta == null
+				&& orden == PaginaResenas.Orden.RECIENTES;
+	}
+}
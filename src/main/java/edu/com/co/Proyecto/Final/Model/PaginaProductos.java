@@ -0,0 +1,100 @@
+package edu.com.co.Proyecto.Final.Model;
+
+import java.util.List;
+
+/**
+ * DTO para una página del catálogo paginado por cursor (keyset)
+ */
+public class PaginaProductos {
+
+	/**
+	 * Criterios de ordenamiento soportados por el catálogo
+	 * Cada uno desempata por idProducto para que el cursor sea estable
+	 */
+	public enum Orden {
+		NOMBRE("nombreProducto", true),
+		PRECIO_ASC("precioProducto", true),
+		PRECIO_DESC("precioProducto", false),
+		CALIFICACION("calificacionProducto", false);
+
+		private final String propiedad;
+		private final boolean ascendente;
+
+		Orden(String propiedad, boolean ascendente) {
+			this.propiedad = propiedad;
+			this.ascendente = ascendente;
+		}
+
+		public String getPropiedad() {
+			return propiedad;
+		}
+
+		public boolean isAscendente() {
+			return ascendente;
+		}
+
+		/**
+		 * Interpretar el parámetro de la URL, usando NOMBRE si no es válido
+		 */
+		public static Orden desde(String valor) {
+			if (valor != null) {
+				for (Orden orden : values()) {
+					if (orden.name().equalsIgnoreCase(valor.trim())) {
+						return orden;
+					}
+				}
+			}
+			return NOMBRE;
+		}
+	}
+
+	private List<producto> productos;
+	private Orden orden;
+	private int tamano;
+	private String siguienteCursor;
+
+	public PaginaProductos() {}
+
+	public PaginaProductos(List<producto> productos, Orden orden, int tamano, String siguienteCursor) {
+		this.productos = productos;
+		this.orden = orden;
+		this.tamano = tamano;
+		this.siguienteCursor = siguienteCursor;
+	}
+
+	public List<producto> getProductos() {
+		return productos;
+	}
+
+	public void setProductos(List<producto> productos) {
+		this.productos = productos;
+	}
+
+	public Orden getOrden() {
+		return orden;
+	}
+
+	public void setOrden(Orden orden) {
+		this.orden = orden;
+	}
+
+	public int getTamano() {
+		return tamano;
+	}
+
+	public void setTamano(int tamano) {
+		this.tamano = tamano;
+	}
+
+	public String getSiguienteCursor() {
+		return siguienteCursor;
+	}
+
+	public void setSiguienteCursor(String siguienteCursor) {
+		this.siguienteCursor = siguienteCursor;
+	}
+
+	public boolean isHayMas() {
+		return siguienteCursor != null;
+	}
+}
@@ -0,0 +1,146 @@
+package edu.com.co.Proyecto.Final.Model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * DTO para una página de reseñas de un producto paginada por cursor (keyset)
+ * El tamaño de cada página está acotado, así que el costo no depende de cuántas reseñas tenga el producto
+ */
+public class PaginaResenas {
+
+	/**
+	 * Criterios de ordenamiento de las reseñas
+	 * Ambos desempatan por fecha e idResena para que el cursor sea estable
+	 */
+	public enum Orden {
+		// Las más recientes primero
+		RECIENTES,
+		// Primero las que tienen comentario, luego las más recientes
+		RELEVANTES;
+
+		/**
+		 * Interpretar el parámetro de la URL, usando RECIENTES si no es válido
+		 */
+		public static Orden desde(String valor) {
+			if (valor != null) {
+				for (Orden orden : values()) {
+					if (orden.name().equalsIgnoreCase(valor.trim())) {
+						return orden;
+					}
+				}
+			}
+			return RECIENTES;
+		}
+	}
+
+	/**
+	 * Posición de la última reseña de una página: (tiene comentario, fecha de creación, idResena)
+	 * Se codifica en Base64 URL para que sea opaca para el cliente
+	 */
+	public static class Cursor {
+
+		private final boolean conComentario;
+		private final Date fechaCreacion;
+		private final Long idResena;
+
+		public Cursor(boolean conComentario, Date fechaCreacion, Long idResena) {
+			this.conComentario = conComentario;
+			this.fechaCreacion = fechaCreacion;
+			this.idResena = idResena;
+		}
+
+		/**
+		 * Cursor que apunta después de la reseña indicada
+		 */
+		public static Cursor despuesDe(ResenaResumen resena) {
+			return new Cursor(resena.isConComentario(), resena.getFechaCreacionResena(), resena.getIdResena());
+		}
+
+		/**
+		 * Decodificar un cursor; devuelve null si está ausente o es inválido (primera página)
+		 */
+		public static Cursor decodificar(String valor) {
+			if (valor == null || valor.isBlank()) {
+				return null;
+			}
+			try {
+				String[] partes = new String(Base64.getUrlDecoder().decode(valor), StandardCharsets.UTF_8).split("\\|");
+				if (partes.length != 3) {
+					return null;
+				}
+				return new Cursor("1".equals(partes[0]), new Date(Long.parseLong(partes[1])), Long.valueOf(partes[2]));
+			} catch (IllegalArgumentException e) {
+				return null;
+			}
+		}
+
+		public String codificar() {
+			String crudo = (conComentario ? "1" : "0") + "|" + fechaCreacion.getTime() + "|" + idResena;
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(crudo.getBytes(StandardCharsets.UTF_8));
+		}
+
+		public boolean isConComentario() {
+			return conComentario;
+		}
+
+		public Date getFechaCreacion() {
+			return fechaCreacion;
+		}
+
+		public Long getIdResena() {
+			return idResena;
+		}
+	}
+
+	private final List<ResenaResumen> resenas;
+	private final FiltroResenas filtro;
+	private final int tamano;
+	private final String siguienteCursor;
+
+	public PaginaResenas(List<ResenaResumen> resenas, FiltroResenas filtro, int tamano, String siguienteCursor) {
+		this.resenas = resenas;
+		this.filtro = filtro;
+		this.tamano = tamano;
+		this.siguienteCursor = siguienteCursor;
+	}
+
+	/**
+	 * Construir la página a partir de una consulta que pidió tamano + 1 filas:
+	 * la fila sobrante solo indica que hay una página siguiente
+	 */
+	public static PaginaResenas desdeResultados(List<ResenaResumen> filas, FiltroResenas filtro, int tamano) {
+		if (filas.size() <= tamano) {
+			return new PaginaResenas(List.copyOf(filas), filtro, tamano, null);
+		}
+		List<ResenaResumen> resenas = List.copyOf(filas.subList(0, tamano));
+		String siguienteCursor = Cursor.despuesDe(resenas.get(tamano - 1)).codificar();
+		return new PaginaResenas(resenas, filtro, tamano, siguienteCursor);
+	}
+
+	public List<ResenaResumen> getResenas() {
+		return resenas;
+	}
+
+	public FiltroResenas getFiltro() {
+		return filtro;
+	}
+
+	public PaginaResenas.Orden getOrden() {
+		return filtro.getOrden();
+	}
+
+	public int getTamano() {
+		return tamano;
+	}
+
+	public String getSiguienteCursor() {
+		return siguienteCursor;
+	}
+
+	public boolean isHayMas() {
+		return siguienteCursor != null;
+	}
+}
@@ -0,0 +1,51 @@
+package edu.com.co.Proyecto.Final.Model;
+
+import java.util.Date;
+
+/**
+ * DTO de solo lectura con los datos de una reseña que se muestran en el perfil de su autor
+ * Se obtiene con una proyección JPQL que trae el nombre del producto en el mismo SELECT
+ */
+public class ResenaPerfil {
+
+	private final Long idResena;
+	private final Long idProducto;
+	private final String nombreProducto;
+	private final Integer calificacion;
+	private final String comentarioResena;
+	private final Date fechaCreacionResena;
+
+	public ResenaPerfil(Long idResena, Long idProducto, String nombreProducto, Integer calificacion,
+						String comentarioResena, Date fechaCreacionResena) {
+		this.idResena = idResena;
+		this.idProducto = idProducto;
+		this.nombreProducto = nombreProducto;
+		this.calificacion = calificacion;
+		this.comentarioResena = comentarioResena;
+		this.fechaCreacionResena = fechaCreacionResena;
+	}
+
+	public Long getIdResena() {
+		return idResena;
+	}
+
+	public Long getIdProducto() {
+		return idProducto;
+	}
+
+	public String getNombreProducto() {
+		return nombreProducto;
+	}
+
+	public Integer getCalificacion() {
+		return calificacion;
+	}
+
+	public String getComentarioResena() {
+		return comentarioResena;
+	}
+
+	public Date getFechaCreacionResena() {
+		return fechaCreacionResena;
+	}
+}
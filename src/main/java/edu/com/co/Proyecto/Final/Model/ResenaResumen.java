@@ -0,0 +1,58 @@
+package edu.com.co.Proyecto.Final.Model;
+
+import java.util.Date;
+
+/**
+ * DTO de solo lectura con los datos de una reseña que se muestran en el detalle de un producto
+ * Se obtiene con una proyección JPQL, sin cargar las entidades usuario ni producto por cada fila
+ */
+public class ResenaResumen {
+
+	private final Long idResena;
+	private final Long idUsuario;
+	private final String nombreUsuario;
+	private final Integer calificacion;
+	private final String comentarioResena;
+	private final Date fechaCreacionResena;
+
+	public ResenaResumen(Long idResena, Long idUsuario, String nombreUsuario, Integer calificacion,
+						 String comentarioResena, Date fechaCreacionResena) {
+		this.idResena = idResena;
+		this.idUsuario = idUsuario;
+		this.nombreUsuario = nombreUsuario;
+		this.calificacion = calificacion;
+		this.comentarioResena = comentarioResena;
+		this.fechaCreacionResena = fechaCreacionResena;
+	}
+
+	public Long getIdResena() {
+		return idResena;
+	}
+
+	public Long getIdUsuario() {
+		return idUsuario;
+	}
+
+	public String getNombreUsuario() {
+		return nombreUsuario;
+	}
+
+	public Integer getCalificacion() {
+		return calificacion;
+	}
+
+	public String getComentarioResena() {
+		return comentarioResena;
+	}
+
+	public Date getFechaCreacionResena() {
+		return fechaCreacionResena;
+	}
+
+	/**
+	 * Misma regla que resena.conComentario, usada para el cursor del orden RELEVANTES
+	 */
+	public boolean isConComentario() {
+		return resena.tieneComentario(comentarioResena);
+	}
+}
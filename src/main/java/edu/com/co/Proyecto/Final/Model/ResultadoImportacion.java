@@ -0,0 +1,82 @@
+package edu.com.co.Proyecto.Final.Model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO con el resumen de una importación masiva de productos
+ * Las filas inválidas se omiten y se reportan por número de línea, sin detener la importación
+ */
+public class ResultadoImportacion {
+
+	// Máximo de errores detallados que se devuelven (el resto solo se cuenta en rechazados)
+	public static final int MAX_ERRORES = 100;
+
+	private long leidos;
+	private long creados;
+	private long actualizados;
+	private long duplicados;
+	private long rechazados;
+	private long duracionMs;
+	private final List<String> errores = new ArrayList<>();
+
+	public ResultadoImportacion() {}
+
+	/**
+	 * Registrar una fila (o lote) rechazada con su motivo
+	 */
+	public void rechazar(long cantidad, String error) {
+		rechazados += cantidad;
+		if (errores.size() < MAX_ERRORES) {
+			errores.add(error);
+		}
+	}
+
+	public void sumarLeidos(long cantidad) {
+		leidos += cantidad;
+	}
+
+	public void sumarCreados(long cantidad) {
+		creados += cantidad;
+	}
+
+	public void sumarActualizados(long cantidad) {
+		actualizados += cantidad;
+	}
+
+	public void sumarDuplicados(long cantidad) {
+		duplicados += cantidad;
+	}
+
+	public long getLeidos() {
+		return leidos;
+	}
+
+	public long getCreados() {
+		return creados;
+	}
+
+	public long getActualizados() {
+		return actualizados;
+	}
+
+	public long getDuplicados() {
+		return duplicados;
+	}
+
+	public long getRechazados() {
+		return rechazados;
+	}
+
+	public long getDuracionMs() {
+		return duracionMs;
+	}
+
+	public void setDuracionMs(long duracionMs) {
+		this.duracionMs = duracionMs;
+	}
+
+	public List<String> getErrores() {
+		return errores;
+	}
+}
@@ -1,14 +1,22 @@
 package edu.com.co.Proyecto.Final.Model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import java.util.List;
 
 @Entity
-@Table(name = "productos")	
+@Table(name = "productos", indexes = {
+	// Índices compuestos para la paginación por keyset del catálogo
+	@Index(name = "idx_productos_precio_id", columnList = "precioProducto, idProducto"),
+	@Index(name = "idx_productos_calificacion_id", columnList = "calificacionProducto, idProducto")
+})
 public class producto {
 	
+	// Ids por bloques desde la tabla secuencias_id (pooled-lo): permite lotes JDBC en los INSERT
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "secuencia_productos")
+	@TableGenerator(name = "secuencia_productos", table = "secuencias_id", pkColumnName = "nombre_secuencia",
+		valueColumnName = "siguiente_valor", pkColumnValue = "productos", allocationSize = 100)
 	@Column(name = "idProducto")
 	private Long idProducto;
 	
@@ -30,6 +38,35 @@ public class producto {
 	@Column(nullable = true, columnDefinition = "TEXT")
 	private String ingredientesProducto;
 	
+	// Agregados de calificación mantenidos con UPDATEs incrementales (ver productoRepository.aplicarDeltaCalificacion)
+	@Column(nullable = false)
+	@ColumnDefault("0")
+	private Integer cantidadResenas = 0;
+	
+	@Column(nullable = false)
+	@ColumnDefault("0")
+	private Long sumaCalificaciones = 0L;
+	
+	@Column(nullable = false)
+	@ColumnDefault("0")
+	private Integer resenas1Estrella = 0;
+	
+	@Column(nullable = false)
+	@ColumnDefault("0")
+	private Integer resenas2Estrellas = 0;
+	
+	@Column(nullable = false)
+	@ColumnDefault("0")
+	private Integer resenas3Estrellas = 0;
+	
+	@Column(nullable = false)
+	@ColumnDefault("0")
+	private Integer resenas4Estrellas = 0;
+	
+	@Column(nullable = false)
+	@ColumnDefault("0")
+	private Integer resenas5Estrellas = 0;
+	
 	@OneToMany(mappedBy = "producto", fetch = FetchType.LAZY, cascade = CascadeType.REMOVE)
 	private List<resena> resenas;
 	
@@ -95,6 +132,62 @@ public class producto {
 		this.ingredientesProducto = ingredientesProducto;
 	}
 	
+	public Integer getCantidadResenas() {
+		return cantidadResenas;
+	}
+	
+	public void setCantidadResenas(Integer cantidadResenas) {
+		this.cantidadResenas = cantidadResenas;
+	}
+	
+	public Long getSumaCalificaciones() {
+		return sumaCalificaciones;
+	}
+	
+	public void setSumaCalificaciones(Long sumaCalificaciones) {
+		this.sumaCalificaciones = sumaCalificaciones;
+	}
+	
+	public Integer getResenas1Estrella() {
+		return resenas1Estrella;
+	}
+	
+	public void setResenas1Estrella(Integer resenas1Estrella) {
+		this.resenas1Estrella = resenas1Estrella;
+	}
+	
+	public Integer getResenas2Estrellas() {
+		return resenas2Estrellas;
+	}
+	
+	public void setResenas2Estrellas(Integer resenas2Estrellas) {
+		this.resenas2Estrellas = resenas2Estrellas;
+	}
+	
+	public Integer getResenas3Estrellas() {
+		return resenas3Estrellas;
+	}
+	
+	public void setResenas3Estrellas(Integer resenas3Estrellas) {
+		this.resenas3Estrellas = resenas3Estrellas;
+	}
+	
+	public Integer getResenas4Estrellas() {
+		return resenas4Estrellas;
+	}
+	
+	public void setResenas4Estrellas(Integer resenas4Estrellas) {
+		this.resenas4Estrellas = resenas4Estrellas;
+	}
+	
+	public Integer getResenas5Estrellas() {
+		return resenas5Estrellas;
+	}
+	
+	public void setResenas5Estrellas(Integer resenas5Estrellas) {
+		this.resenas5Estrellas = resenas5Estrellas;
+	}
+	
 	public List<resena> getResenas() {
 		return resenas;
 	}
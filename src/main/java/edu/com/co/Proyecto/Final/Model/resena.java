@@ -1,14 +1,32 @@
 package edu.com.co.Proyecto.Final.Model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 import java.util.Date;
 
 @Entity
-@Table(name = "resenas")
+@Table(name = "resenas", indexes = {
+	// Rango por fecha para las estadísticas de reseñas por día
+	@Index(name = "idx_resenas_fecha_creacion", columnList = "fechaCreacionResena"),
+	// Páginas de reseñas de un producto (ver resenaRepository): uno por cada filtro indexable,
+	// todos terminan en (fecha, id) para servir el orden y el cursor sin ordenar en memoria
+	@Index(name = "idx_resenas_producto_fecha", columnList = "idProducto, fechaCreacionResena, idResena"),
+	@Index(name = "idx_resenas_producto_calificacion_fecha", columnList = "idProducto, calificacion, fechaCreacionResena, idResena"),
+	@Index(name = "idx_resenas_producto_comentario_fecha", columnList = "idProducto, conComentario, fechaCreacionResena, idResena")
+}, uniqueConstraints = {
+	// Una sola reseña por usuario y producto; también sirve de índice para findByUsuarioAndProducto
+	@UniqueConstraint(name = resena.UK_USUARIO_PRODUCTO, columnNames = {"idUsuario", "idProducto"})
+})
 public class resena {
 	
+	// Nombre de la restricción única (usuario, producto), usado para reconocer reseñas duplicadas
+	public static final String UK_USUARIO_PRODUCTO = "uk_resenas_usuario_producto";
+	
+	// Ids por bloques desde la tabla secuencias_id (pooled-lo): permite lotes JDBC en los INSERT
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "secuencia_resenas")
+	@TableGenerator(name = "secuencia_resenas", table = "secuencias_id", pkColumnName = "nombre_secuencia",
+		valueColumnName = "siguiente_valor", pkColumnValue = "resenas", allocationSize = 100)
 	@Column(name = "idResena")
 	private Long idResena;
 	
@@ -26,6 +44,11 @@ public class resena {
 	@Column(nullable = true, columnDefinition = "TEXT")
 	private String comentarioResena;
 	
+	// Derivado de comentarioResena: un TEXT no se puede indexar, este indicador sí
+	@Column(nullable = false)
+	@ColumnDefault("0")
+	private Boolean conComentario = false;
+	
 	@Column(nullable = false, updatable = false)
 	@Temporal(TemporalType.TIMESTAMP)
 	private Date fechaCreacionResena = new Date();
@@ -82,6 +105,10 @@ public class resena {
 		this.comentarioResena = comentarioResena;
 	}
 	
+	public Boolean getConComentario() {
+		return conComentario;
+	}
+	
 	public Date getFechaCreacionResena() {
 		return fechaCreacionResena;
 	}
@@ -98,9 +125,20 @@ public class resena {
 		this.fechaActualizacionResena = fechaActualizacionResena;
 	}
 	
+	@PrePersist
+	protected void onCreate() {
+		conComentario = tieneComentario(comentarioResena);
+	}
+	
 	@PreUpdate
 	protected void onUpdate() {
 		fechaActualizacionResena = new Date();
+		conComentario = tieneComentario(comentarioResena);
+	}
+	
+	// Un comentario vacío o solo con espacios no cuenta como comentario
+	public static boolean tieneComentario(String comentario) {
+		return comentario != null && !comentario.trim().isEmpty();
 	}
 	
 }
@@ -7,8 +7,11 @@ import java.util.List;
 @Table(name = "roles")
 public class roles {
 	
+	// Ids por bloques desde la tabla secuencias_id (pooled-lo): permite lotes JDBC en los INSERT
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "secuencia_roles")
+	@TableGenerator(name = "secuencia_roles", table = "secuencias_id", pkColumnName = "nombre_secuencia",
+		valueColumnName = "siguiente_valor", pkColumnValue = "roles", allocationSize = 100)
 	@Column(name = "idRol")
 	private Long idRol;
 	
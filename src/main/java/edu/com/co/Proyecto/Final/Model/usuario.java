@@ -3,12 +3,17 @@ package edu.com.co.Proyecto.Final.Model;
 import jakarta.persistence.*;
 import java.util.List;
 
+import org.hibernate.annotations.ColumnDefault;
+
 @Entity
 @Table(name = "usuarios")
 public class usuario {
 	
+	// Ids por bloques desde la tabla secuencias_id (pooled-lo): permite lotes JDBC en los INSERT
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.TABLE, generator = "secuencia_usuarios")
+	@TableGenerator(name = "secuencia_usuarios", table = "secuencias_id", pkColumnName = "nombre_secuencia",
+		valueColumnName = "siguiente_valor", pkColumnValue = "usuarios", allocationSize = 100)
 	@Column(name = "idUsuario")
 	private Long idUsuario;
 	
@@ -33,6 +38,11 @@ public class usuario {
 	@Column(nullable = true, length = 100)
 	private String providerId;
 	
+	// Versión de los tokens JWT del usuario: incrementarla revoca todos los tokens emitidos antes
+	@Column(nullable = false)
+	@ColumnDefault("0")
+	private Integer versionToken = 0;
+	
 	@ManyToOne
 	@JoinColumn(name = "idRol", nullable = false)
 	private roles rol;
@@ -128,4 +138,12 @@ public class usuario {
 		this.providerId = providerId;
 	}
 	
+	public Integer getVersionToken() {
+		return versionToken;
+	}
+	
+	public void setVersionToken(Integer versionToken) {
+		this.versionToken = versionToken;
+	}
+	
 }
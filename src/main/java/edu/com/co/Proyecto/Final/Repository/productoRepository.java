@@ -1,22 +1,77 @@
 package edu.com.co.Proyecto.Final.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import edu.com.co.Proyecto.Final.Model.producto;
 
 public interface productoRepository extends JpaRepository<producto, Long> {
 	Optional<producto> findByNombreProducto(String nombreProducto);
-	
-	// Búsqueda por nombre o descripción (case-insensitive)
-	@Query("SELECT p FROM producto p WHERE " +
-	       "LOWER(p.nombreProducto) LIKE LOWER(CONCAT('%', :busqueda, '%')) OR " +
-	       "LOWER(p.descripcionProducto) LIKE LOWER(CONCAT('%', :busqueda, '%')) OR " +
-	       "LOWER(p.ingredientesProducto) LIKE LOWER(CONCAT('%', :busqueda, '%'))")
-	List<producto> buscarProductos(@Param("busqueda") String busqueda);
+
+	// Productos existentes de un lote de importación (una sola consulta IN por lote)
+	List<producto> findByNombreProductoIn(Collection<String> nombresProducto);
+
+	// Suma global de calificaciones y cantidad de reseñas a partir de los agregados por producto
+	@Query("SELECT COALESCE(SUM(p.sumaCalificaciones), 0), COALESCE(SUM(p.cantidadResenas), 0) FROM producto p")
+	List<Object[]> sumarAgregadosCalificacion();
+
+	// Productos mejor calificados que tienen al menos una reseña
+	List<producto> findTop5ByCantidadResenasGreaterThanOrderByCalificacionProductoDescCantidadResenasDesc(Integer minimoResenas);
+
+	// Catálogo paginado por keyset (seek): WHERE (orden, id) > (cursor) ORDER BY orden, id LIMIT n
+	Window<producto> findBy(ScrollPosition posicion, Sort orden, Limit limite);
+
+	// Aplicar un delta atómico a los agregados de calificación de un producto.
+	// La calificación promedio se asigna primero porque MySQL evalúa el SET de izquierda a derecha
+	// y debe calcularse con los valores anteriores más el delta.
+	// No limpia el contexto de persistencia (dejaría desconectadas las entidades del llamador);
+	// resenaService refresca solo el producto afectado si ya estaba cargado.
+	@Transactional
+	@Modifying(flushAutomatically = true)
+	@Query("UPDATE producto p SET " +
+	       "p.calificacionProducto = CASE WHEN p.cantidadResenas + :deltaCantidad > 0 " +
+	       "THEN (p.sumaCalificaciones + :deltaSuma) * 1.0 / (p.cantidadResenas + :deltaCantidad) ELSE 0.0 END, " +
+	       "p.cantidadResenas = p.cantidadResenas + :deltaCantidad, " +
+	       "p.sumaCalificaciones = p.sumaCalificaciones + :deltaSuma, " +
+	       "p.resenas1Estrella = p.resenas1Estrella + :delta1, " +
+	       "p.resenas2Estrellas = p.resenas2Estrellas + :delta2, " +
+	       "p.resenas3Estrellas = p.resenas3Estrellas + :delta3, " +
+	       "p.resenas4Estrellas = p.resenas4Estrellas + :delta4, " +
+	       "p.resenas5Estrellas = p.resenas5Estrellas + :delta5 " +
+	       "WHERE p.idProducto = :idProducto")
+	int aplicarDeltaCalificacion(@Param("idProducto") Long idProducto,
+	                             @Param("deltaCantidad") int deltaCantidad,
+	                             @Param("deltaSuma") long deltaSuma,
+	                             @Param("delta1") int delta1,
+	                             @Param("delta2") int delta2,
+	                             @Param("delta3") int delta3,
+	                             @Param("delta4") int delta4,
+	                             @Param("delta5") int delta5);
+
+	// Migración: poblar los agregados de productos que tienen reseñas pero aún no tienen contadores
+	@Transactional
+	@Modifying
+	@Query("UPDATE producto p SET " +
+	       "p.calificacionProducto = (SELECT COALESCE(AVG(r.calificacion * 1.0), 0.0) FROM resena r WHERE r.producto = p), " +
+	       "p.cantidadResenas = (SELECT COUNT(r) FROM resena r WHERE r.producto = p), " +
+	       "p.sumaCalificaciones = (SELECT COALESCE(SUM(r.calificacion), 0) FROM resena r WHERE r.producto = p), " +
+	       "p.resenas1Estrella = (SELECT COUNT(r) FROM resena r WHERE r.producto = p AND r.calificacion = 1), " +
+	       "p.resenas2Estrellas = (SELECT COUNT(r) FROM resena r WHERE r.producto = p AND r.calificacion = 2), " +
+	       "p.resenas3Estrellas = (SELECT COUNT(r) FROM resena r WHERE r.producto = p AND r.calificacion = 3), " +
+	       "p.resenas4Estrellas = (SELECT COUNT(r) FROM resena r WHERE r.producto = p AND r.calificacion = 4), " +
+	       "p.resenas5Estrellas = (SELECT COUNT(r) FROM resena r WHERE r.producto = p AND r.calificacion = 5) " +
+	       "WHERE p.cantidadResenas = 0 AND EXISTS (SELECT r FROM resena r WHERE r.producto = p)")
+	int inicializarAgregadosCalificacion();
 
 }
@@ -1,19 +1,111 @@
 package edu.com.co.Proyecto.Final.Repository;
 
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import edu.com.co.Proyecto.Final.Model.ResenaPerfil;
+import edu.com.co.Proyecto.Final.Model.ResenaResumen;
 import edu.com.co.Proyecto.Final.Model.resena;
 
 public interface resenaRepository extends JpaRepository<resena, Long> {
 	
 	Optional<resena> findByIdResena(Long idResena);
 	
+	// Reseña por ID con su producto en el mismo SELECT (formulario de edición)
+	@EntityGraph(attributePaths = "producto")
+	@Query("SELECT r FROM resena r WHERE r.idResena = :idResena")
+	Optional<resena> buscarConProducto(@Param("idResena") Long idResena);
+	
+	// Reseñas de un producto con su autor (y el rol del autor, que es EAGER) en un solo SELECT
+	@Query("SELECT r FROM resena r JOIN FETCH r.usuario u JOIN FETCH u.rol " +
+	       "WHERE r.producto.idProducto = :idProducto ORDER BY r.fechaCreacionResena DESC, r.idResena DESC")
+	List<resena> buscarPorProductoConUsuario(@Param("idProducto") Long idProducto);
+	
+	// Reseñas de un usuario con su producto en un solo SELECT
+	@Query("SELECT r FROM resena r JOIN FETCH r.producto " +
+	       "WHERE r.usuario.idUsuario = :idUsuario ORDER BY r.fechaCreacionResena DESC, r.idResena DESC")
+	List<resena> buscarPorUsuarioConProducto(@Param("idUsuario") Long idUsuario);
+	
+	// Resumen de las reseñas de un usuario para su perfil (proyección con el nombre del producto en un solo JOIN)
+	@Query("SELECT new edu.com.co.Proyecto.Final.Model.ResenaPerfil(" +
+	       "r.idResena, p.idProducto, p.nombreProducto, r.calificacion, r.comentarioResena, r.fechaCreacionResena) " +
+	       "FROM resena r JOIN r.producto p WHERE r.usuario.idUsuario = :idUsuario " +
+	       "ORDER BY r.fechaCreacionResena DESC, r.idResena DESC")
+	List<ResenaPerfil> findResumenesPorUsuario(@Param("idUsuario") Long idUsuario);
+	
 	// Obtener reseña existente de un usuario para un producto específico
 	@Query("SELECT r FROM resena r WHERE r.usuario.idUsuario = :idUsuario AND r.producto.idProducto = :idProducto")
 	Optional<resena> findByUsuarioAndProducto(@Param("idUsuario") Long idUsuario, @Param("idProducto") Long idProducto);
+	
+	// Página de reseñas de un producto, las más recientes primero, paginada por cursor (fecha, id).
+	// Los filtros nulos se ignoran; el límite se pide con una fila extra para saber si hay más
+	@Query("SELECT new edu.com.co.Proyecto.Final.Model.ResenaResumen(" +
+	       "r.idResena, u.idUsuario, u.nombreUsuario, r.calificacion, r.comentarioResena, r.fechaCreacionResena) " +
+	       "FROM resena r JOIN r.usuario u WHERE r.producto.idProducto = :idProducto " +
+	       "AND (:calificacion IS NULL OR r.calificacion = :calificacion) " +
+	       "AND (:soloConComentario = false OR r.conComentario = true) " +
+	       "AND (:desde IS NULL OR r.fechaCreacionResena >= :desde) " +
+	       "AND (:hasta IS NULL OR r.fechaCreacionResena < :hasta) " +
+	       "AND (:cursorFecha IS NULL OR r.fechaCreacionResena < :cursorFecha " +
+	       "OR (r.fechaCreacionResena = :cursorFecha AND r.idResena < :cursorId)) " +
+	       "ORDER BY r.fechaCreacionResena DESC, r.idResena DESC")
+	List<ResenaResumen> buscarPaginaRecientes(@Param("idProducto") Long idProducto,
+	                                          @Param("calificacion") Integer calificacion,
+	                                          @Param("soloConComentario") boolean soloConComentario,
+	                                          @Param("desde") Date desde,
+	                                          @Param("hasta") Date hasta,
+	                                          @Param("cursorFecha") Date cursorFecha,
+	                                          @Param("cursorId") Long cursorId,
+	                                          Limit limite);
+	
+	// Página de reseñas de un producto, primero las que tienen comentario y luego las más recientes,
+	// paginada por cursor (conComentario, fecha, id)
+	@Query("SELECT new edu.com.co.Proyecto.Final.Model.ResenaResumen(" +
+	       "r.idResena, u.idUsuario, u.nombreUsuario, r.calificacion, r.comentarioResena, r.fechaCreacionResena) " +
+	       "FROM resena r JOIN r.usuario u WHERE r.producto.idProducto = :idProducto " +
+	       "AND (:calificacion IS NULL OR r.calificacion = :calificacion) " +
+	       "AND (:soloConComentario = false OR r.conComentario = true) " +
+	       "AND (:desde IS NULL OR r.fechaCreacionResena >= :desde) " +
+	       "AND (:hasta IS NULL OR r.fechaCreacionResena < :hasta) " +
+	       "AND (:cursorFecha IS NULL " +
+	       "OR (:cursorConComentario = true AND r.conComentario = false) " +
+	       "OR (r.conComentario = :cursorConComentario AND (r.fechaCreacionResena < :cursorFecha " +
+	       "OR (r.fechaCreacionResena = :cursorFecha AND r.idResena < :cursorId)))) " +
+	       "ORDER BY r.conComentario DESC, r.fechaCreacionResena DESC, r.idResena DESC")
+	List<ResenaResumen> buscarPaginaRelevantes(@Param("idProducto") Long idProducto,
+	                                           @Param("calificacion") Integer calificacion,
+	                                           @Param("soloConComentario") boolean soloConComentario,
+	                                           @Param("desde") Date desde,
+	                                           @Param("hasta") Date hasta,
+	                                           @Param("cursorConComentario") Boolean cursorConComentario,
+	                                           @Param("cursorFecha") Date cursorFecha,
+	                                           @Param("cursorId") Long cursorId,
+	                                           Limit limite);
+	
+	// Cantidad de reseñas creadas por día desde una fecha
+	@Query("SELECT CAST(r.fechaCreacionResena AS LocalDate), COUNT(r) FROM resena r " +
+	       "WHERE r.fechaCreacionResena >= :desde " +
+	       "GROUP BY CAST(r.fechaCreacionResena AS LocalDate) ORDER BY CAST(r.fechaCreacionResena AS LocalDate)")
+	List<Object[]> contarResenasPorDia(@Param("desde") Date desde);
+	
+	// Pares (idProducto, calificacion) de las reseñas de un usuario, para revertir agregados sin cargar entidades
+	@Query("SELECT r.producto.idProducto, r.calificacion FROM resena r WHERE r.usuario.idUsuario = :idUsuario")
+	List<Object[]> findCalificacionesPorUsuario(@Param("idUsuario") Long idUsuario);
+	
+	// Migración: marcar conComentario en las reseñas creadas antes de que existiera la columna
+	@Transactional
+	@Modifying
+	@Query("UPDATE resena r SET r.conComentario = true " +
+	       "WHERE r.conComentario = false AND r.comentarioResena IS NOT NULL AND TRIM(r.comentarioResena) <> ''")
+	int inicializarConComentario();
 
 }
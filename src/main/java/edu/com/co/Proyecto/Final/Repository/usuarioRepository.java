@@ -1,8 +1,14 @@
 package edu.com.co.Proyecto.Final.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import edu.com.co.Proyecto.Final.Model.usuario;
 
@@ -10,5 +16,40 @@ public interface usuarioRepository extends JpaRepository<usuario, Long> {
 	Optional<usuario> findByNombreUsuario(String nombreUsuario);
 	// Find user by email for uniqueness validation on profile updates
 	Optional<usuario> findByEmailUsuario(String emailUsuario);
+	
+	// Usuario por email con su rol en una sola consulta (login OAuth2)
+	@Query("SELECT u FROM usuario u JOIN FETCH u.rol WHERE u.emailUsuario = :emailUsuario")
+	Optional<usuario> findConRolByEmailUsuario(@Param("emailUsuario") String emailUsuario);
+	
+	// Usuarios cuyo nombre o email coincide con el identificador, con su rol; primero la coincidencia por nombre
+	// Ambas columnas son únicas: MySQL resuelve el OR uniendo los dos índices (index_merge)
+	@Query("SELECT u FROM usuario u JOIN FETCH u.rol " +
+	       "WHERE u.nombreUsuario = :identificador OR u.emailUsuario = :identificador " +
+	       "ORDER BY CASE WHEN u.nombreUsuario = :identificador THEN 0 ELSE 1 END")
+	List<usuario> findConRolByIdentificador(@Param("identificador") String identificador, Limit limite);
+	
+	// Resolver un nombre de usuario o email (sesiones OAuth2 usan el email) en un solo viaje a la base de datos
+	default Optional<usuario> findByNombreUsuarioOEmail(String identificador) {
+		return findConRolByIdentificador(identificador, Limit.of(1)).stream().findFirst();
+	}
+	
+	// Versión vigente de los tokens JWT del usuario (solo la columna, sin cargar la entidad)
+	@Query("SELECT u.versionToken FROM usuario u WHERE u.nombreUsuario = :nombreUsuario")
+	Optional<Integer> findVersionTokenByNombreUsuario(@Param("nombreUsuario") String nombreUsuario);
+	
+	// Revocar todos los tokens JWT del usuario incrementando su versión
+	@Transactional
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE usuario u SET u.versionToken = u.versionToken + 1 WHERE u.nombreUsuario = :nombreUsuario")
+	int incrementarVersionToken(@Param("nombreUsuario") String nombreUsuario);
+	
+	// Reemplazar el hash de la contraseña (rehash con el costo vigente al iniciar sesión) solo si sigue siendo
+	// el hash con el que se autenticó: si la contraseña cambió entretanto, no se actualiza ninguna fila
+	@Transactional
+	@Modifying
+	@Query("UPDATE usuario u SET u.contrasenaUsuario = :contrasena " +
+	       "WHERE u.nombreUsuario = :nombreUsuario AND u.contrasenaUsuario = :hashAnterior")
+	int actualizarContrasena(@Param("nombreUsuario") String nombreUsuario, @Param("hashAnterior") String hashAnterior,
+			@Param("contrasena") String contrasena);
 
 }
\ No newline at end of file
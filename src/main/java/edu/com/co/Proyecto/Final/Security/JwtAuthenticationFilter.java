@@ -1,12 +1,15 @@
 package edu.com.co.Proyecto.Final.Security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -23,6 +26,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 	@Autowired
 	private usuarioDetailsService usuarioDetailsService;
 	
+	@Autowired
+	private metricasAutenticacion metricasAutenticacion;
+	
+	// Modo sin estado: construir la autenticación desde el claim "roles" sin consultar la base de datos
+	@Value("${jwt.autenticacion-sin-estado:true}")
+	private boolean autenticacionSinEstado;
+	
 	@Override
 	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
 			throws ServletException, IOException {
@@ -38,27 +48,40 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 		final String authorizationHeader = request.getHeader("Authorization");
 		
 		String username = null;
-		String jwt = null;
+		Claims claims = null;
 		
 		// Verificar si el header contiene un Bearer token
 		if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-			jwt = authorizationHeader.substring(7);
+			String jwt = authorizationHeader.substring(7);
 			try {
-				username = jwtUtil.extractUsername(jwt);
+				// Parsear y verificar el token una sola vez por request
+				claims = jwtUtil.extractAllClaims(jwt);
+				username = claims.getSubject();
 			} catch (Exception e) {
 				// Token inválido o expirado
 				logger.error("Error al extraer username del token: " + e.getMessage());
+				metricasAutenticacion.registrarToken("invalido");
 			}
 		}
 		
-		// Si se extrajo el username y no hay autenticación en el contexto
-		if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+		// Si se extrajo el username, el token no fue revocado y no hay autenticación en el contexto
+		if (username != null && SecurityContextHolder.getContext().getAuthentication() == null
+			&& jwtUtil.isTokenVigente(claims)) {
 			
-			// Cargar los detalles del usuario
-			UserDetails userDetails = this.usuarioDetailsService.loadUserByUsername(username);
+			UserDetails userDetails;
+			if (autenticacionSinEstado) {
+				// Los roles vienen en el token firmado: no es necesario consultar la base de datos
+				userDetails = User.withUsername(username)
+					.password("")
+					.authorities(jwtUtil.extractAuthorities(claims))
+					.build();
+			} else {
+				// Cargar los detalles del usuario
+				userDetails = this.usuarioDetailsService.loadUserByUsername(username);
+			}
 			
 			// Validar el token
-			if (jwtUtil.validateToken(jwt, userDetails)) {
+			if (jwtUtil.validateToken(claims, userDetails)) {
 				
 				// Crear el objeto de autenticación
 				UsernamePasswordAuthenticationToken authenticationToken = 
@@ -68,7 +91,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 				
 				// Establecer la autenticación en el contexto de seguridad
 				SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+				metricasAutenticacion.registrarToken("valido");
+			} else {
+				metricasAutenticacion.registrarToken("invalido");
 			}
+		} else if (claims != null) {
+			metricasAutenticacion.registrarToken("revocado");
 		}
 		
 		// Continuar con la cadena de filtros
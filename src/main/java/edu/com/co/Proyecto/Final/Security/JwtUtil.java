@@ -1,24 +1,45 @@
 package edu.com.co.Proyecto.Final.Security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Component
 public class JwtUtil {
 	
+	@Autowired
+	private revocacionTokenService revocacionTokenService;
+	
+	@Autowired
+	private MeterRegistry meterRegistry;
+	
 	// Clave secreta para firmar el JWT (debería estar en application.properties)
 	@Value("${jwt.secret:mySecretKeyForJWTTokenGenerationThatIsAtLeast256BitsLongForHS256Algorithm}")
 	private String SECRET_KEY;
@@ -27,11 +48,52 @@ public class JwtUtil {
 	@Value("${jwt.expiration:86400000}")
 	private Long JWT_TOKEN_VALIDITY;
 	
+	// Máximo de tokens verificados que se mantienen en cache
+	@Value("${jwt.claims-cache.tamano-maximo:10000}")
+	private long claimsCacheTamanoMaximo;
+	
+	// Clave y parser se construyen una sola vez: ambos son inmutables y seguros entre hilos
+	private SecretKey signingKey;
+	private JwtParser jwtParser;
+	
+	// Claims ya verificados, indexados por el SHA-256 del token y expirados en el "exp" del token
+	private Cache<String, Claims> claimsVerificados;
+	
+	@PostConstruct
+	void inicializar() {
+		signingKey = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+		jwtParser = Jwts.parser()
+				.verifyWith(signingKey)
+				.build();
+		claimsVerificados = Caffeine.newBuilder()
+				.maximumSize(claimsCacheTamanoMaximo)
+				.expireAfter(new Expiry<String, Claims>() {
+					@Override
+					public long expireAfterCreate(String key, Claims claims, long currentTime) {
+						long restanteMillis = claims.getExpiration().getTime() - System.currentTimeMillis();
+						return TimeUnit.MILLISECONDS.toNanos(Math.max(restanteMillis, 0));
+					}
+					
+					@Override
+					public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+						return currentDuration;
+					}
+					
+					@Override
+					public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+						return currentDuration;
+					}
+				})
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, claimsVerificados, "jwt.claims");
+	}
+	
 	/**
 	 * Obtiene la clave secreta para firmar los tokens
 	 */
 	private SecretKey getSigningKey() {
-		return Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+		return signingKey;
 	}
 	
 	/**
@@ -58,20 +120,43 @@ public class JwtUtil {
 	
 	/**
 	 * Extrae todos los claims del token
+	 * La firma se verifica solo la primera vez que se ve el token; las siguientes llamadas
+	 * (mismo request o requests posteriores) usan los claims cacheados hasta su expiración
+	 * 
+	 * @throws io.jsonwebtoken.JwtException si el token es inválido o ha expirado
 	 */
-	private Claims extractAllClaims(String token) {
-		return Jwts.parser()
-				.verifyWith(getSigningKey())
-				.build()
-				.parseSignedClaims(token)
-				.getPayload();
+	public Claims extractAllClaims(String token) {
+		String digest = digestToken(token);
+		Claims claims = claimsVerificados.getIfPresent(digest);
+		if (claims != null) {
+			return claims;
+		}
+		
+		// parseSignedClaims verifica la firma y rechaza tokens expirados
+		claims = jwtParser.parseSignedClaims(token).getPayload();
+		if (claims.getExpiration() != null) {
+			claimsVerificados.put(digest, claims);
+		}
+		return claims;
+	}
+	
+	/**
+	 * Resumen SHA-256 del token, para no guardar el token completo como llave del cache
+	 */
+	private String digestToken(String token) {
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 no está disponible", e);
+		}
 	}
 	
 	/**
 	 * Verifica si el token ha expirado
 	 */
-	private Boolean isTokenExpired(String token) {
-		return extractExpiration(token).before(new Date());
+	private Boolean isTokenExpired(Claims claims) {
+		return claims.getExpiration().before(new Date());
 	}
 	
 	/**
@@ -86,6 +171,9 @@ public class JwtUtil {
 				.collect(Collectors.joining(","));
 		claims.put("roles", roles);
 		
+		// Versión vigente de los tokens del usuario, para poder revocarlos sin denylist
+		claims.put("ver", revocacionTokenService.obtenerVersion(userDetails.getUsername()));
+		
 		return createToken(claims, userDetails.getUsername());
 	}
 	
@@ -109,8 +197,15 @@ public class JwtUtil {
 	 * Valida si el token es válido para el usuario
 	 */
 	public Boolean validateToken(String token, UserDetails userDetails) {
-		final String username = extractUsername(token);
-		return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+		return validateToken(extractAllClaims(token), userDetails);
+	}
+	
+	/**
+	 * Valida claims ya extraídos contra el usuario, sin volver a parsear el token
+	 */
+	public Boolean validateToken(Claims claims, UserDetails userDetails) {
+		final String username = claims.getSubject();
+		return (username.equals(userDetails.getUsername()) && !isTokenExpired(claims));
 	}
 	
 	/**
@@ -120,4 +215,29 @@ public class JwtUtil {
 		Claims claims = extractAllClaims(token);
 		return claims.get("roles", String.class);
 	}
+	
+	/**
+	 * Extrae las autoridades del claim "roles" (separadas por coma)
+	 */
+	public List<GrantedAuthority> extractAuthorities(Claims claims) {
+		List<GrantedAuthority> authorities = new ArrayList<>();
+		String roles = claims.get("roles", String.class);
+		if (roles != null) {
+			for (String role : roles.split(",")) {
+				if (!role.isBlank()) {
+					authorities.add(new SimpleGrantedAuthority(role.trim()));
+				}
+			}
+		}
+		return authorities;
+	}
+	
+	/**
+	 * Verifica que el token no haya sido revocado (su versión coincide con la vigente del usuario)
+	 * Los tokens emitidos antes de existir el claim "ver" se consideran de la versión 0
+	 */
+	public boolean isTokenVigente(Claims claims) {
+		Number version = claims.get("ver", Number.class);
+		return revocacionTokenService.esVersionVigente(claims.getSubject(), version != null ? version.intValue() : 0);
+	}
 }
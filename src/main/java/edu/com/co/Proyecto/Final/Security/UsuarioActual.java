@@ -0,0 +1,18 @@
+package edu.com.co.Proyecto.Final.Security;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Parámetro de un controlador que recibe el usuario autenticado (o null si no hay sesión)
+ * Lo resuelve usuarioActualResolver a partir del principal ya autenticado por JwtAuthenticationFilter
+ * o por la sesión, con una sola consulta por petición
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface UsuarioActual {
+}
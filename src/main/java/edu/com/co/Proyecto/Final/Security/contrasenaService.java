@@ -0,0 +1,232 @@
+package edu.com.co.Proyecto.Final.Security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * PasswordEncoder de la aplicación (BCrypt) con hashing fuera de los hilos de Tomcat
+ *
+ * - Cada encode/matches se ejecuta en un pool acotado (por defecto un hilo por núcleo): una ráfaga de logins
+ *   no puede ocupar más CPU que el pool, y si la cola se llena se rechaza de inmediato en lugar de acumular
+ *   peticiones esperando
+ * - El costo de BCrypt se calibra al arrancar para que un hash tarde cerca del objetivo configurado;
+ *   las contraseñas guardadas con un costo menor se vuelven a calcular en el siguiente login
+ *   (upgradeEncoding + usuarioDetailsService.updatePassword)
+ * - Las cuentas OAuth2 sin contraseña guardan SIN_CONTRASENA en lugar de un hash, que nunca coincide
+ */
+@Service
+@Timed("servicio")
+public class contrasenaService implements PasswordEncoder {
+
+	private static final Logger log = LoggerFactory.getLogger(contrasenaService.class);
+
+	// Valor guardado para cuentas sin contraseña (OAuth2): no es un hash BCrypt válido y nunca coincide
+	public static final String SIN_CONTRASENA = "{sin-contrasena}";
+
+	// Límites de BCrypt
+	private static final int COSTO_MINIMO_BCRYPT = 4;
+	private static final int COSTO_MAXIMO_BCRYPT = 31;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	// Costo fijo de BCrypt; 0 = calibrar al arrancar
+	@Value("${seguridad.contrasenas.costo:0}")
+	private int costoConfigurado;
+
+	// Tiempo objetivo de un hash al calibrar
+	@Value("${seguridad.contrasenas.objetivo-ms:250}")
+	private long objetivoMs;
+
+	// Rango permitido para el costo calibrado; el mínimo es el costo fijo anterior (12), así un host lento
+	// nunca produce hashes más débiles que antes
+	@Value("${seguridad.contrasenas.costo-minimo:12}")
+	private int costoMinimo;
+
+	@Value("${seguridad.contrasenas.costo-maximo:16}")
+	private int costoMaximo;
+
+	// Hilos dedicados a BCrypt (0 = uno por núcleo)
+	@Value("${seguridad.contrasenas.hilos:0}")
+	private int hilos;
+
+	// Hashes que pueden esperar en cola antes de rechazar
+	@Value("${seguridad.contrasenas.cola:64}")
+	private int capacidadCola;
+
+	// Tiempo máximo que una petición espera su hash
+	@Value("${seguridad.contrasenas.espera-ms:5000}")
+	private long esperaMs;
+
+	private volatile int costo;
+	private BCryptPasswordEncoder bcrypt;
+	private ThreadPoolExecutor pool;
+	private Counter rechazados;
+
+	// Hash de referencia para comparar contra cuentas sin contraseña en el mismo tiempo que una cuenta real
+	private String hashReferencia;
+
+	@PostConstruct
+	void inicializar() {
+		costo = costoConfigurado > 0 ? limitarCosto(costoConfigurado) : calibrarCosto();
+		bcrypt = new BCryptPasswordEncoder(costo);
+		hashReferencia = bcrypt.encode(SIN_CONTRASENA);
+
+		int cantidadHilos = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+		AtomicInteger contador = new AtomicInteger();
+		pool = new ThreadPoolExecutor(cantidadHilos, cantidadHilos, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(capacidadCola),
+				tarea -> {
+					Thread hilo = new Thread(tarea, "contrasenas-" + contador.incrementAndGet());
+					hilo.setDaemon(true);
+					return hilo;
+				},
+				new ThreadPoolExecutor.AbortPolicy());
+		pool.allowCoreThreadTimeOut(true);
+
+		new ExecutorServiceMetrics(pool, "contrasenas", Tags.empty()).bindTo(meterRegistry);
+		Gauge.builder("contrasenas.costo", () -> costo)
+				.description("Costo (log2 de rondas) de BCrypt para contraseñas nuevas")
+				.register(meterRegistry);
+		rechazados = Counter.builder("contrasenas.rechazadas")
+				.description("Hashes rechazados por pool saturado o espera agotada")
+				.register(meterRegistry);
+
+		log.info("BCrypt con costo {} ({} hilos, cola de {})", costo, cantidadHilos, capacidadCola);
+	}
+
+	@PreDestroy
+	void detener() {
+		pool.shutdownNow();
+	}
+
+	/**
+	 * Costo de BCrypt con el que se calculan los hashes nuevos
+	 */
+	public int getCosto() {
+		return costo;
+	}
+
+	@Override
+	public String encode(CharSequence contrasena) {
+		return ejecutar(() -> bcrypt.encode(contrasena));
+	}
+
+	@Override
+	public boolean matches(CharSequence contrasena, String hash) {
+		if (!tieneContrasena(hash)) {
+			// Mismo trabajo que una cuenta real, para no revelar por tiempo qué cuentas no tienen contraseña
+			ejecutar(() -> bcrypt.matches(contrasena, hashReferencia));
+			return false;
+		}
+		return ejecutar(() -> bcrypt.matches(contrasena, hash));
+	}
+
+	/**
+	 * Verificar si el hash guardado fue calculado con un costo menor al actual (se recalcula en el login)
+	 */
+	@Override
+	public boolean upgradeEncoding(String hash) {
+		return tieneContrasena(hash) && bcrypt.upgradeEncoding(hash);
+	}
+
+	/**
+	 * Verificar si la cuenta tiene una contraseña propia (las cuentas OAuth2 no la tienen)
+	 */
+	public static boolean tieneContrasena(String hash) {
+		return hash != null && !hash.isEmpty() && !SIN_CONTRASENA.equals(hash);
+	}
+
+	// ==================== MÉTODOS PRIVADOS ====================
+
+	/**
+	 * Ejecutar un cálculo de BCrypt en el pool y esperar el resultado
+	 *
+	 * @throws AuthenticationServiceException si el pool está saturado o la espera se agota
+	 */
+	private <T> T ejecutar(Callable<T> tarea) {
+		Future<T> futuro;
+		try {
+			futuro = pool.submit(tarea);
+		} catch (RejectedExecutionException e) {
+			rechazados.increment();
+			throw new AuthenticationServiceException("Servicio de contraseñas saturado, intente nuevamente", e);
+		}
+
+		try {
+			return futuro.get(esperaMs, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			futuro.cancel(true);
+			rechazados.increment();
+			throw new AuthenticationServiceException("Servicio de contraseñas saturado, intente nuevamente", e);
+		} catch (InterruptedException e) {
+			futuro.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new AuthenticationServiceException("Cálculo de contraseña interrumpido", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException causa) {
+				throw causa;
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	/**
+	 * Mayor costo cuyo hash tarda como máximo el objetivo (cada punto de costo duplica el tiempo)
+	 */
+	private int calibrarCosto() {
+		int minimo = limitarCosto(costoMinimo);
+		int maximo = Math.max(minimo, limitarCosto(costoMaximo));
+
+		// Calentar el JIT para no sobreestimar el tiempo del primer hash
+		new BCryptPasswordEncoder(COSTO_MINIMO_BCRYPT).encode("calibracion");
+
+		int elegido = minimo;
+		for (int candidato = minimo; candidato <= maximo; candidato++) {
+			long inicio = System.nanoTime();
+			new BCryptPasswordEncoder(candidato).encode("calibracion");
+			long ms = (System.nanoTime() - inicio) / 1_000_000;
+			log.debug("Calibración BCrypt: costo {} = {} ms", candidato, ms);
+
+			if (ms > objetivoMs) {
+				break;
+			}
+			elegido = candidato;
+			// El siguiente costo tardaría el doble: si ya superaría el objetivo no hace falta medirlo
+			if (ms * 2 > objetivoMs) {
+				break;
+			}
+		}
+		return elegido;
+	}
+
+	private int limitarCosto(int valor) {
+		return Math.max(COSTO_MINIMO_BCRYPT, Math.min(COSTO_MAXIMO_BCRYPT, valor));
+	}
+}
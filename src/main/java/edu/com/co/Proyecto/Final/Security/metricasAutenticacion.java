@@ -0,0 +1,68 @@
+package edu.com.co.Proyecto.Final.Security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.event.AbstractAuthenticationFailureEvent;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.authentication.OAuth2LoginAuthenticationToken;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Contadores de autenticación
+ * Los inicios de sesión (formulario, API y OAuth2) se cuentan a partir de los eventos que publica
+ * el AuthenticationManager; los tokens JWT los reporta JwtAuthenticationFilter en cada petición
+ */
+@Component
+public class metricasAutenticacion {
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@EventListener
+	public void alAutenticar(AuthenticationSuccessEvent evento) {
+		Counter.builder("autenticacion.intentos")
+				.description("Intentos de inicio de sesión por método y resultado")
+				.tag("metodo", metodo(evento.getAuthentication()))
+				.tag("resultado", "exito")
+				.tag("motivo", "ninguno")
+				.register(meterRegistry)
+				.increment();
+	}
+
+	@EventListener
+	public void alFallar(AbstractAuthenticationFailureEvent evento) {
+		Counter.builder("autenticacion.intentos")
+				.description("Intentos de inicio de sesión por método y resultado")
+				.tag("metodo", metodo(evento.getAuthentication()))
+				.tag("resultado", "fallo")
+				.tag("motivo", evento.getException().getClass().getSimpleName())
+				.register(meterRegistry)
+				.increment();
+	}
+
+	/**
+	 * Registrar la verificación de un token JWT (valido, invalido o revocado)
+	 */
+	public void registrarToken(String resultado) {
+		Counter.builder("autenticacion.jwt")
+				.description("Tokens JWT recibidos por resultado de la verificación")
+				.tag("resultado", resultado)
+				.register(meterRegistry)
+				.increment();
+	}
+
+	private String metodo(Authentication autenticacion) {
+		if (autenticacion instanceof OAuth2LoginAuthenticationToken) {
+			return "oauth2";
+		}
+		if (autenticacion instanceof UsernamePasswordAuthenticationToken) {
+			return "contrasena";
+		}
+		return "otro";
+	}
+}
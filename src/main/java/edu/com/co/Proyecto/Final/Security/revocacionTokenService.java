@@ -0,0 +1,129 @@
+package edu.com.co.Proyecto.Final.Security;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import edu.com.co.Proyecto.Final.Repository.usuarioRepository;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Revocación de tokens JWT por versión
+ * Cada token lleva la versión del usuario al momento de emitirse (claim "ver");
+ * incrementar la versión en la base de datos invalida todos los tokens anteriores.
+ * Las versiones se cachean en memoria para que validar un token no requiera ir a MySQL.
+ */
+@Service
+@Timed("servicio")
+public class revocacionTokenService {
+	
+	// Valor cacheado para usuarios que no existen (ej: eliminados): todos sus tokens quedan revocados
+	private static final int USUARIO_INEXISTENTE = -1;
+	
+	@Autowired
+	private usuarioRepository usuarioRepository;
+	
+	@Autowired
+	private MeterRegistry meterRegistry;
+	
+	// Máximo de usuarios con versión cacheada
+	@Value("${jwt.revocacion.cache.tamano-maximo:10000}")
+	private long tamanoMaximo;
+	
+	// Tiempo máximo que una revocación hecha en otra instancia tarda en verse en esta
+	@Value("${jwt.revocacion.cache.ttl-segundos:30}")
+	private long ttlSegundos;
+	
+	private AsyncCache<String, Integer> versiones;
+	
+	@PostConstruct
+	void inicializarCache() {
+		versiones = Caffeine.newBuilder()
+				.maximumSize(tamanoMaximo)
+				.expireAfterWrite(Duration.ofSeconds(ttlSegundos))
+				.recordStats()
+				.buildAsync();
+		CaffeineCacheMetrics.monitor(meterRegistry, versiones, "jwt.revocacion");
+	}
+	
+	/**
+	 * Obtener la versión vigente de los tokens del usuario
+	 * La consulta corre en el hilo actual y no dentro de Cache.get(clave, cargador), que la ejecutaría dentro de
+	 * ConcurrentHashMap.compute y fijaría el hilo de plataforma de un hilo virtual (mismo esquema que
+	 * usuarioDetailsService). Una revocación durante la consulta descarta el futuro: la versión anterior
+	 * no vuelve al cache.
+	 */
+	public int obtenerVersion(String nombreUsuario) {
+		CompletableFuture<Integer> futuro = versiones.getIfPresent(nombreUsuario);
+		if (futuro == null) {
+			CompletableFuture<Integer> nuevo = new CompletableFuture<>();
+			futuro = versiones.asMap().putIfAbsent(nombreUsuario, nuevo);
+			if (futuro == null) {
+				try {
+					int version = usuarioRepository.findVersionTokenByNombreUsuario(nombreUsuario)
+							.orElse(USUARIO_INEXISTENTE);
+					nuevo.complete(version);
+					return version;
+				} catch (RuntimeException e) {
+					versiones.asMap().remove(nombreUsuario, nuevo);
+					nuevo.completeExceptionally(e);
+					throw e;
+				}
+			}
+		}
+		try {
+			return futuro.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException causa) {
+				throw causa;
+			}
+			throw e;
+		}
+	}
+	
+	/**
+	 * Verificar si un token con la versión indicada sigue vigente
+	 */
+	public boolean esVersionVigente(String nombreUsuario, int versionToken) {
+		int versionActual = obtenerVersion(nombreUsuario);
+		return versionActual != USUARIO_INEXISTENTE && versionActual == versionToken;
+	}
+	
+	/**
+	 * Revocar todos los tokens emitidos para el usuario (ej: cierre de sesión global o cambio de contraseña)
+	 */
+	public void revocarTokens(String nombreUsuario) {
+		usuarioRepository.incrementarVersionToken(nombreUsuario);
+		invalidar(nombreUsuario);
+	}
+	
+	/**
+	 * Descartar la versión cacheada de un usuario
+	 * Si hay una transacción activa se descarta también al confirmarla
+	 */
+	public void invalidar(String nombreUsuario) {
+		versiones.synchronous().invalidate(nombreUsuario);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					versiones.synchronous().invalidate(nombreUsuario);
+				}
+			});
+		}
+	}
+}
@@ -1,8 +1,12 @@
 package edu.com.co.Proyecto.Final.Security;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
@@ -19,6 +23,8 @@ import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 @EnableWebSecurity
 public class securityConfig {
 	
+	private static final Logger log = LoggerFactory.getLogger(securityConfig.class);
+	
 	@Autowired
 	private usuarioDetailsService usuarioDetailsService;
 	
@@ -40,6 +46,8 @@ public class securityConfig {
 		authProvider.setUserDetailsService(usuarioDetailsService);
 		authProvider.setPasswordEncoder(passwordEncoder);
 		authProvider.setHideUserNotFoundExceptions(true);
+		// Recalcular con el costo vigente los hashes antiguos al iniciar sesión correctamente
+		authProvider.setUserDetailsPasswordService(usuarioDetailsService);
 		return authProvider;
 	}
 	
@@ -55,6 +63,29 @@ public class securityConfig {
 		return authenticationManagerBuilder.build();
 	}
 	
+	/**
+	 * Cadena de seguridad de Actuator (se evalúa antes que la de la aplicación)
+	 * La salud es pública; el scrape de Prometheus expone contadores de autenticación, caches y pools,
+	 * así que exige una cuenta ADMIN por HTTP Basic (credenciales del scraper) o con un JWT de administrador.
+	 * Sin sesión ni redirecciones al login: un acceso sin credenciales recibe 401.
+	 */
+	@Bean
+	@Order(1)
+	public SecurityFilterChain actuatorFilterChain(HttpSecurity http) throws Exception {
+		http
+			.securityMatcher("/actuator/**")
+			.authorizeHttpRequests(authz -> authz
+				.requestMatchers("/actuator/health").permitAll()
+				.anyRequest().hasRole("ADMIN")
+			)
+			.addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+			.sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+			.httpBasic(Customizer.withDefaults())
+			.csrf(csrf -> csrf.disable());
+		
+		return http.build();
+	}
+	
 	/**
 	 * Configuración de la cadena de filtros de seguridad
 	 */
@@ -128,21 +159,13 @@ public class securityConfig {
 					.userService(customOAuth2UserService)
 				)
 				.successHandler((request, response, authentication) -> {
-					// Debug: Mostrar las autoridades del usuario
-					System.out.println("OAuth2 Authentication successful!");
-					System.out.println("Principal: " + authentication.getPrincipal());
-					System.out.println("Authorities: " + authentication.getAuthorities());
-					authentication.getAuthorities().forEach(auth -> 
-						System.out.println("  - Authority: " + auth.getAuthority())
-					);
+					log.debug("Autenticación OAuth2 exitosa: {} con {}", authentication.getName(), authentication.getAuthorities());
 					
 					// Redirige según el rol del usuario
 					if (authentication.getAuthorities().stream()
 						.anyMatch(auth -> auth.getAuthority().equals("ROLE_ADMIN"))) {
-						System.out.println("Redirecting to /admin/home");
 						response.sendRedirect("/admin/home");
 					} else {
-						System.out.println("Redirecting to /user/home");
 						response.sendRedirect("/user/home");
 					}
 				})
@@ -0,0 +1,69 @@
+package edu.com.co.Proyecto.Final.Security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import edu.com.co.Proyecto.Final.Model.usuario;
+import edu.com.co.Proyecto.Final.Service.usuarioService;
+
+/**
+ * Resuelve los parámetros @UsuarioActual de los controladores
+ * El usuario se busca por el nombre del principal (nombre de usuario, o email en OAuth2) una sola vez
+ * por petición y se guarda como atributo de la petición; los demás parámetros y llamadas de la misma
+ * petición reutilizan esa instancia
+ */
+@Component
+public class usuarioActualResolver implements HandlerMethodArgumentResolver {
+
+	// Atributo de la petición con el usuario ya resuelto (SIN_USUARIO si no existe)
+	private static final String ATRIBUTO = usuarioActualResolver.class.getName() + ".usuario";
+	private static final Object SIN_USUARIO = new Object();
+
+	@Autowired
+	private usuarioService usuarioService;
+
+	@Override
+	public boolean supportsParameter(MethodParameter parametro) {
+		return parametro.hasParameterAnnotation(UsuarioActual.class)
+				&& usuario.class.isAssignableFrom(parametro.getParameterType());
+	}
+
+	@Override
+	public Object resolveArgument(MethodParameter parametro, ModelAndViewContainer mavContainer,
+			NativeWebRequest peticion, WebDataBinderFactory binderFactory) {
+		return obtener(peticion);
+	}
+
+	/**
+	 * Usuario autenticado de la petición, o null si es anónima o el usuario ya no existe
+	 */
+	private usuario obtener(RequestAttributes peticion) {
+		Object resuelto = peticion.getAttribute(ATRIBUTO, RequestAttributes.SCOPE_REQUEST);
+		if (resuelto == null) {
+			usuario usuario = cargar(SecurityContextHolder.getContext().getAuthentication());
+			resuelto = usuario != null ? usuario : SIN_USUARIO;
+			peticion.setAttribute(ATRIBUTO, resuelto, RequestAttributes.SCOPE_REQUEST);
+		}
+		return resuelto instanceof usuario usuario ? usuario : null;
+	}
+
+	// ==================== MÉTODOS PRIVADOS ====================
+
+	private usuario cargar(Authentication authentication) {
+		if (authentication == null || !authentication.isAuthenticated()
+				|| authentication instanceof AnonymousAuthenticationToken) {
+			return null;
+		}
+		// Buscar por nombre de usuario o por email (para OAuth2) en una sola consulta, con el rol
+		return usuarioService.obtenerUsuarioPorNombreOEmail(authentication.getName()).orElse(null);
+	}
+}
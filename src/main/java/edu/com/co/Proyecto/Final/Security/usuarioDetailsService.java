@@ -1,38 +1,190 @@
 package edu.com.co.Proyecto.Final.Security;
 
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
 import edu.com.co.Proyecto.Final.Model.usuario;
 import edu.com.co.Proyecto.Final.Repository.usuarioRepository;
+import edu.com.co.Proyecto.Final.Service.indiceBusquedaService;
 
+import jakarta.annotation.PostConstruct;
+
+import java.time.Duration;
 import java.util.HashSet;
-import java.util.Optional;
+import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+/**
+ * Carga de usuarios para Spring Security con cache en memoria
+ * Cada login (formulario, /api/auth/login y /api/auth/validate) pasa por aquí; los datos de autenticación
+ * se cachean por el texto con el que se buscaron (nombre de usuario o email) en minúsculas, con tamaño máximo y TTL.
+ * La colación de MySQL no distingue mayúsculas: "USER" y "user" son la misma cuenta y deben compartir entrada,
+ * o una variante quedaría con la contraseña o el rol anteriores hasta que venza el TTL.
+ * usuarioService invalida las entradas del usuario al cambiar su perfil, contraseña o rol (también las buscadas
+ * con otra variante de acentos, ver descartar).
+ * Al iniciar sesión con un hash de costo menor al vigente, DaoAuthenticationProvider lo recalcula y lo guarda
+ * mediante updatePassword.
+ * La consulta se hace en el hilo que pidió el usuario, fuera de ConcurrentHashMap.compute (ver obtenerOCargar).
+ */
 @Service
-public class usuarioDetailsService implements UserDetailsService {
+@Timed("servicio")
+public class usuarioDetailsService implements UserDetailsService, UserDetailsPasswordService {
 	
 	@Autowired
 	private usuarioRepository usuarioRepository;
 	
+	@Autowired
+	private MeterRegistry meterRegistry;
+	
+	// Máximo de usuarios cacheados
+	@Value("${usuarios.cache.tamano-maximo:10000}")
+	private long tamanoMaximo;
+	
+	// Tiempo máximo que un cambio hecho en otra instancia tarda en verse en esta
+	@Value("${usuarios.cache.ttl-segundos:60}")
+	private long ttlSegundos;
+	
+	private AsyncCache<String, UserDetails> usuarios;
+	
+	@PostConstruct
+	void inicializarCache() {
+		usuarios = Caffeine.newBuilder()
+				.maximumSize(tamanoMaximo)
+				.expireAfterWrite(Duration.ofSeconds(ttlSegundos))
+				.recordStats()
+				.buildAsync();
+		CaffeineCacheMetrics.monitor(meterRegistry, usuarios, "usuarios.detalles");
+	}
+	
+	/**
+	 * Cargar un usuario por nombre de usuario o email
+	 * Se devuelve una copia de la entrada cacheada: el AuthenticationManager borra la contraseña
+	 * del UserDetails autenticado (eraseCredentials) y no debe afectar al cache
+	 */
 	@Override
 	public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-		// Intentar buscar por nombre de usuario primero
-		Optional<usuario> usuarioOpt = usuarioRepository.findByNombreUsuario(username);
-		
-		// Si no se encuentra, intentar buscar por email (para OAuth2)
-		if (usuarioOpt.isEmpty()) {
-			usuarioOpt = usuarioRepository.findByEmailUsuario(username);
+		// Los usuarios inexistentes no se cachean (un registro nuevo se ve de inmediato)
+		UserDetails cacheado = obtenerOCargar(clave(username), username);
+		return User.withUserDetails(cacheado).build();
+	}
+	
+	/**
+	 * Descartar las entradas cacheadas de un usuario
+	 * Si hay una transacción activa se descartan también al confirmarla
+	 *
+	 * @param claves Nombre de usuario y emails (actual y anterior) con los que pudo haberse buscado
+	 */
+	public void invalidar(String... claves) {
+		descartar(claves);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					descartar(claves);
+				}
+			});
 		}
-		
-		usuario usuario = usuarioOpt
+	}
+	
+	/**
+	 * Guardar el hash recalculado con el costo vigente tras un login correcto
+	 * Solo reemplaza el hash con el que se autenticó: si la entrada cacheada estaba desactualizada (la contraseña
+	 * cambió en otra instancia dentro del TTL), escribir el rehash de la contraseña anterior desharía el cambio.
+	 * Si se actualizó, se descartan todas las entradas del usuario (también las buscadas por email)
+	 */
+	@Override
+	public UserDetails updatePassword(UserDetails user, String newPassword) {
+		int actualizadas = usuarioRepository.actualizarContrasena(user.getUsername(), user.getPassword(), newPassword);
+		if (actualizadas == 0) {
+			return user;
+		}
+		usuarios.synchronous().asMap().values().removeIf(cacheado -> cacheado.getUsername().equals(user.getUsername()));
+		return User.withUserDetails(user).password(newPassword).build();
+	}
+	
+	/**
+	 * Descartar las entradas buscadas con las claves indicadas y las de la misma cuenta buscadas con otra variante
+	 * MySQL tampoco distingue acentos: "jose" y "josé" encuentran la misma cuenta pero son claves distintas del
+	 * cache, así que también se descartan las entradas cuyo nombre de usuario cacheado coincide con alguna clave.
+	 * Las cargas en curso se descartan siempre: aún no se sabe de qué cuenta son y podrían traer datos anteriores.
+	 */
+	private void descartar(String... claves) {
+		Set<String> nombres = new HashSet<>();
+		for (String identificador : claves) {
+			if (identificador != null) {
+				usuarios.synchronous().invalidate(clave(identificador));
+				nombres.add(indiceBusquedaService.normalizar(identificador));
+			}
+		}
+		usuarios.asMap().values().removeIf(futuro -> !futuro.isDone()
+				|| (!futuro.isCompletedExceptionally()
+						&& nombres.contains(indiceBusquedaService.normalizar(futuro.join().getUsername()))));
+	}
+	
+	// Clave del cache: sin distinguir mayúsculas, igual que la búsqueda en la base de datos
+	private static String clave(String identificador) {
+		return identificador.toLowerCase(Locale.ROOT);
+	}
+	
+	/**
+	 * Devolver la entrada cacheada o consultarla en el hilo actual
+	 * No se usa Cache.get(clave, cargador): Caffeine ejecuta el cargador dentro de ConcurrentHashMap.compute,
+	 * sincronizado sobre el bin del mapa, y con hilos virtuales (Java 21) la consulta JDBC dejaría fijado el hilo
+	 * de plataforma y bloqueadas las demás claves del bin. Aquí solo se publica un futuro con putIfAbsent: las
+	 * peticiones concurrentes por la misma clave esperan ese futuro, y si la entrada se invalida durante la
+	 * consulta el resultado no vuelve al cache.
+	 */
+	private UserDetails obtenerOCargar(String clave, String username) {
+		CompletableFuture<UserDetails> futuro = usuarios.getIfPresent(clave);
+		if (futuro == null) {
+			CompletableFuture<UserDetails> nuevo = new CompletableFuture<>();
+			futuro = usuarios.asMap().putIfAbsent(clave, nuevo);
+			if (futuro == null) {
+				try {
+					UserDetails cargado = cargarUsuario(username);
+					nuevo.complete(cargado);
+					return cargado;
+				} catch (RuntimeException e) {
+					// Los usuarios inexistentes (y los errores) no quedan en el cache
+					usuarios.asMap().remove(clave, nuevo);
+					nuevo.completeExceptionally(e);
+					throw e;
+				}
+			}
+		}
+		try {
+			return futuro.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException causa) {
+				throw causa;
+			}
+			throw e;
+		}
+	}
+	
+	// Consultar el usuario en la base de datos (privado)
+	private UserDetails cargarUsuario(String username) {
+		// Buscar por nombre de usuario o por email (para OAuth2) junto con el rol, en una sola consulta
+		usuario usuario = usuarioRepository.findByNombreUsuarioOEmail(username)
 			.orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + username));
 		
 		// Crear las autoridades basadas en el rol del usuario
@@ -44,10 +196,10 @@ public class usuarioDetailsService implements UserDetailsService {
 			authorities.add(new SimpleGrantedAuthority(authority));
 		}
 		
-		// Para usuarios OAuth2 sin contraseña, usar un placeholder
+		// Usuarios OAuth2 sin contraseña: el marcador nunca coincide en el login tradicional
 		String password = usuario.getContrasenaUsuario();
-		if (password == null || password.isEmpty()) {
-			password = "{noop}"; // Usuarios OAuth2 no usan contraseña
+		if (!contrasenaService.tieneContrasena(password)) {
+			password = contrasenaService.SIN_CONTRASENA;
 		}
 		
 		return User.builder()
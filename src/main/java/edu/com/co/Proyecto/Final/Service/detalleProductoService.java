@@ -0,0 +1,123 @@
+package edu.com.co.Proyecto.Final.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import edu.com.co.Proyecto.Final.Model.DetalleProducto;
+import edu.com.co.Proyecto.Final.Model.FiltroResenas;
+import edu.com.co.Proyecto.Final.Model.PaginaResenas;
+import edu.com.co.Proyecto.Final.Model.ResenaResumen;
+import edu.com.co.Proyecto.Final.Model.producto;
+import edu.com.co.Proyecto.Final.Repository.productoRepository;
+import edu.com.co.Proyecto.Final.Repository.resenaRepository;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Cache de lectura (read-through) para las páginas de detalle de producto
+ * Guarda el producto junto con la primera página de sus reseñas, acotado por tamaño y TTL
+ * productoService y resenaService lo invalidan en cada escritura
+ */
+@Service
+@Timed("servicio")
+public class detalleProductoService {
+
+	@Autowired
+	private productoRepository productoRepo;
+
+	@Autowired
+	private resenaRepository resenaRepo;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	// Máximo de productos en cache
+	@Value("${detalle-producto.cache.tamano-maximo:1000}")
+	private long tamanoMaximo;
+
+	// Tiempo de vida de cada entrada
+	@Value("${detalle-producto.cache.ttl-segundos:300}")
+	private long ttlSegundos;
+
+	private Cache<Long, DetalleProducto> cache;
+
+	@PostConstruct
+	void inicializarCache() {
+		cache = Caffeine.newBuilder()
+				.maximumSize(tamanoMaximo)
+				.expireAfterWrite(Duration.ofSeconds(ttlSegundos))
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, "detalle.producto");
+	}
+
+	/**
+	 * Obtener el detalle de un producto, consultando la base de datos solo si no está en cache
+	 */
+	public Optional<DetalleProducto> obtenerDetalle(Long idProducto) {
+		DetalleProducto detalle = cache.getIfPresent(idProducto);
+		if (detalle != null) {
+			return Optional.of(detalle);
+		}
+
+		Optional<producto> productoOpt = productoRepo.findById(idProducto);
+		if (productoOpt.isEmpty()) {
+			return Optional.empty();
+		}
+
+		// Solo se cachea la primera página de reseñas con el filtro por defecto, así la entrada queda acotada
+		// aunque el producto tenga miles de reseñas; los demás filtros y páginas van a resenaService
+		int tamano = resenaService.TAMANO_PAGINA_DEFECTO;
+		List<ResenaResumen> filas = resenaRepo.buscarPaginaRecientes(idProducto, null, false, null, null, null, null, Limit.of(tamano + 1));
+		detalle = new DetalleProducto(productoOpt.get(), PaginaResenas.desdeResultados(filas, FiltroResenas.porDefecto(), tamano));
+		cache.put(idProducto, detalle);
+		return Optional.of(detalle);
+	}
+
+	/**
+	 * Invalidar el detalle de un producto
+	 * Si hay una transacción activa se invalida también al confirmarla, para que una lectura
+	 * concurrente no vuelva a cachear datos anteriores al commit
+	 */
+	public void invalidar(Long idProducto) {
+		cache.invalidate(idProducto);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					cache.invalidate(idProducto);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Estadísticas de aciertos/fallos del cache
+	 */
+	public CacheStats obtenerEstadisticas() {
+		return cache.stats();
+	}
+
+	/**
+	 * Cantidad aproximada de entradas en cache
+	 */
+	public long obtenerTamano() {
+		return cache.estimatedSize();
+	}
+}
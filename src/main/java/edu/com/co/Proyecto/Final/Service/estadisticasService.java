@@ -0,0 +1,138 @@
+package edu.com.co.Proyecto.Final.Service;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.micrometer.core.annotation.Timed;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import edu.com.co.Proyecto.Final.Model.EstadisticasPanel;
+import edu.com.co.Proyecto.Final.Repository.productoRepository;
+import edu.com.co.Proyecto.Final.Repository.resenaRepository;
+import edu.com.co.Proyecto.Final.Repository.usuarioRepository;
+
+/**
+ * Servicio de estadísticas para el panel de control administrativo
+ * Usa consultas de agregación en lugar de cargar todas las entidades,
+ * y cachea el resultado por un TTL corto para que el panel cargue en tiempo constante
+ */
+@Service
+@Timed("servicio")
+public class estadisticasService {
+
+	@Autowired
+	private productoRepository productoRepo;
+
+	@Autowired
+	private resenaRepository resenaRepo;
+
+	@Autowired
+	private usuarioRepository usuarioRepo;
+
+	// Tiempo de vida de las estadísticas cacheadas
+	@Value("${estadisticas.cache.ttl-segundos:30}")
+	private long ttlSegundos;
+
+	// Días hacia atrás que se muestran en la serie de reseñas por día
+	@Value("${estadisticas.resenas-por-dia.dias:7}")
+	private int diasResenasPorDia;
+
+	// ReentrantLock y no synchronized: el recálculo consulta la base de datos y, con hilos virtuales (Java 21),
+	// esperar o bloquearse dentro de un synchronized fija el hilo de plataforma que lo ejecuta
+	private final ReentrantLock bloqueo = new ReentrantLock();
+	private volatile EstadisticasPanel estadisticasCacheadas;
+	private volatile long expiracionNanos;
+	// Se incrementa en cada invalidar(): un recálculo que empezó antes no guarda su resultado
+	private final AtomicLong generacion = new AtomicLong();
+
+	/**
+	 * Obtener las estadísticas del panel, recalculándolas solo si el cache expiró
+	 */
+	public EstadisticasPanel obtenerEstadisticas() {
+		EstadisticasPanel actuales = estadisticasCacheadas;
+		if (actuales != null && System.nanoTime() - expiracionNanos < 0) {
+			return actuales;
+		}
+
+		bloqueo.lock();
+		try {
+			// Otro hilo pudo haberlas recalculado mientras se esperaba el bloqueo
+			if (estadisticasCacheadas != null && System.nanoTime() - expiracionNanos < 0) {
+				return estadisticasCacheadas;
+			}
+
+			long generacionInicial = generacion.get();
+			EstadisticasPanel nuevas = calcularEstadisticas();
+			// Si se invalidó durante el cálculo, las consultas pudieron leer datos anteriores al cambio:
+			// se devuelven a esta petición pero no se cachean, y la siguiente vuelve a calcular
+			if (generacion.get() == generacionInicial) {
+				estadisticasCacheadas = nuevas;
+				expiracionNanos = System.nanoTime() + ttlSegundos * 1_000_000_000L;
+			}
+			return nuevas;
+		} finally {
+			bloqueo.unlock();
+		}
+	}
+
+	/**
+	 * Descartar las estadísticas cacheadas (ej: al crear o eliminar un producto)
+	 */
+	public void invalidar() {
+		generacion.incrementAndGet();
+		estadisticasCacheadas = null;
+	}
+
+	// ==================== MÉTODOS PRIVADOS ====================
+
+	private EstadisticasPanel calcularEstadisticas() {
+		long totalProductos = productoRepo.count();
+		long totalResenas = resenaRepo.count();
+		long totalUsuarios = usuarioRepo.count();
+
+		// Promedio global ponderado por reseña, a partir de los agregados de cada producto
+		Object[] agregados = productoRepo.sumarAgregadosCalificacion().get(0);
+		long sumaCalificaciones = ((Number) agregados[0]).longValue();
+		long cantidadResenas = ((Number) agregados[1]).longValue();
+		double promedio = cantidadResenas > 0 ? (double) sumaCalificaciones / cantidadResenas : 0.0;
+
+		return new EstadisticasPanel(
+			totalProductos,
+			totalResenas,
+			totalUsuarios,
+			promedio,
+			calcularResenasPorDia(),
+			productoRepo.findTop5ByCantidadResenasGreaterThanOrderByCalificacionProductoDescCantidadResenasDesc(0)
+		);
+	}
+
+	/**
+	 * Serie de reseñas por día de los últimos días, completando con 0 los días sin reseñas
+	 */
+	private List<EstadisticasPanel.ResenasPorDia> calcularResenasPorDia() {
+		ZoneId zona = ZoneId.systemDefault();
+		LocalDate hoy = LocalDate.now(zona);
+		LocalDate desde = hoy.minusDays(diasResenasPorDia - 1L);
+
+		Map<LocalDate, Long> conteos = new HashMap<>();
+		for (Object[] fila : resenaRepo.contarResenasPorDia(Date.from(desde.atStartOfDay(zona).toInstant()))) {
+			conteos.put((LocalDate) fila[0], ((Number) fila[1]).longValue());
+		}
+
+		List<EstadisticasPanel.ResenasPorDia> serie = new ArrayList<>();
+		for (LocalDate dia = desde; !dia.isAfter(hoy); dia = dia.plusDays(1)) {
+			serie.add(new EstadisticasPanel.ResenasPorDia(dia, conteos.getOrDefault(dia, 0L)));
+		}
+		return serie;
+	}
+}
@@ -0,0 +1,164 @@
+package edu.com.co.Proyecto.Final.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Resolución de imágenes con cache
+ * Busca cada imagen una sola vez en las ubicaciones posibles y guarda el recurso encontrado
+ * junto con sus metadatos HTTP (tamaño, última modificación y ETag fuerte por contenido)
+ */
+@Service
+@Timed("servicio")
+public class imagenService {
+
+	// Ubicaciones donde se buscan las imágenes, en orden de prioridad
+	private static final String[] UBICACIONES = {
+		"classpath:/static/imagenes/",
+		"classpath:/imagenes/",
+		"file:src/main/resources/static/imagenes/"
+	};
+
+	private static final int BUFFER_SIZE = 8 * 1024;
+
+	/**
+	 * Imagen ya resuelta con los metadatos necesarios para respuestas condicionales
+	 */
+	public static class ImagenResuelta {
+
+		private final Resource recurso;
+		private final long longitud;
+		private final long ultimaModificacion;
+		private final String hashContenido;
+
+		public ImagenResuelta(Resource recurso, long longitud, long ultimaModificacion, String hashContenido) {
+			this.recurso = recurso;
+			this.longitud = longitud;
+			this.ultimaModificacion = ultimaModificacion;
+			this.hashContenido = hashContenido;
+		}
+
+		public Resource getRecurso() {
+			return recurso;
+		}
+
+		public long getLongitud() {
+			return longitud;
+		}
+
+		public long getUltimaModificacion() {
+			return ultimaModificacion;
+		}
+
+		/**
+		 * SHA-256 del contenido (Base64 URL), sirve de llave para el cache de variantes
+		 */
+		public String getHashContenido() {
+			return hashContenido;
+		}
+
+		/**
+		 * ETag fuerte derivado del contenido
+		 */
+		public String getEtag() {
+			return "\"" + hashContenido + "\"";
+		}
+	}
+
+	@Autowired
+	private ResourceLoader resourceLoader;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	// Máximo de imágenes resueltas en cache
+	@Value("${imagenes.cache.tamano-maximo:2000}")
+	private long tamanoMaximo;
+
+	// Tiempo tras el cual se vuelve a resolver una imagen (para detectar archivos reemplazados)
+	@Value("${imagenes.cache.ttl-segundos:600}")
+	private long ttlSegundos;
+
+	private Cache<String, ImagenResuelta> resueltas;
+
+	@PostConstruct
+	void inicializarCache() {
+		resueltas = Caffeine.newBuilder()
+				.maximumSize(tamanoMaximo)
+				.expireAfterWrite(Duration.ofSeconds(ttlSegundos))
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, resueltas, "imagenes.resueltas");
+	}
+
+	/**
+	 * Resolver una imagen por nombre de archivo
+	 * Solo se cachean las imágenes encontradas, para que una subida nueva sea visible de inmediato
+	 */
+	public Optional<ImagenResuelta> resolver(String nombreArchivo) throws IOException {
+		ImagenResuelta imagen = resueltas.getIfPresent(nombreArchivo);
+		if (imagen != null) {
+			return Optional.of(imagen);
+		}
+
+		for (String ubicacion : UBICACIONES) {
+			Resource recurso = resourceLoader.getResource(ubicacion + nombreArchivo);
+			if (recurso.exists() && recurso.isReadable()) {
+				imagen = new ImagenResuelta(recurso, recurso.contentLength(), recurso.lastModified(), calcularHashContenido(recurso));
+				resueltas.put(nombreArchivo, imagen);
+				return Optional.of(imagen);
+			}
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * Descartar una imagen del cache (ej: el archivo dejó de existir)
+	 */
+	public void invalidar(String nombreArchivo) {
+		resueltas.invalidate(nombreArchivo);
+	}
+
+	// ==================== MÉTODOS PRIVADOS ====================
+
+	/**
+	 * Resumen SHA-256 del contenido, calculado una vez por resolución
+	 */
+	private String calcularHashContenido(Resource recurso) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 no está disponible", e);
+		}
+
+		try (InputStream in = recurso.getInputStream()) {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			int leidos;
+			while ((leidos = in.read(buffer)) != -1) {
+				digest.update(buffer, 0, leidos);
+			}
+		}
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest());
+	}
+}
@@ -0,0 +1,578 @@
+package edu.com.co.Proyecto.Final.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import io.micrometer.core.annotation.Timed;
+
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.com.co.Proyecto.Final.Model.ResultadoImportacion;
+import edu.com.co.Proyecto.Final.Model.producto;
+import edu.com.co.Proyecto.Final.Repository.productoRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Importación y exportación masiva del catálogo de productos (CSV o JSON lines)
+ *
+ * - La entrada se lee en streaming y se procesa por lotes: cada lote se deduplica por nombre,
+ *   consulta los existentes con un solo IN y se guarda (insert o update) en su propia transacción
+ *   con INSERT/UPDATE en lotes JDBC. Un lote con error se descarta sin afectar a los demás.
+ * - La exportación recorre la tabla por keyset (id) en ventanas del mismo tamaño y escribe cada fila
+ *   a medida que llega, sin cargar el catálogo completo ni mantener una conexión abierta todo el tiempo.
+ */
+@Service
+@Timed("servicio")
+public class importacionProductosService {
+
+	private static final Logger log = LoggerFactory.getLogger(importacionProductosService.class);
+
+	// Columnas importables/exportadas, en el orden del encabezado CSV
+	public static final List<String> COLUMNAS = List.of(
+		"nombreProducto", "precioProducto", "rutaImagenProducto", "descripcionProducto", "ingredientesProducto");
+
+	// Longitudes máximas de las columnas (ver producto)
+	private static final int LONGITUD_MAXIMA_NOMBRE = 100;
+	private static final int LONGITUD_MAXIMA_RUTA = 255;
+
+	// Caracteres iniciales que una hoja de cálculo interpreta como fórmula; en CSV se exportan precedidos de '
+	private static final String INICIO_FORMULA = "=+-@\t\r";
+
+	/**
+	 * Formatos soportados
+	 */
+	public enum Formato {
+		CSV("text/csv", "csv"),
+		JSONL("application/x-ndjson", "jsonl");
+
+		private final String tipoContenido;
+		private final String extension;
+
+		Formato(String tipoContenido, String extension) {
+			this.tipoContenido = tipoContenido;
+			this.extension = extension;
+		}
+
+		public String getTipoContenido() {
+			return tipoContenido;
+		}
+
+		public String getExtension() {
+			return extension;
+		}
+
+		/**
+		 * Resolver el formato a partir del parámetro explícito, el tipo de contenido o la extensión del archivo
+		 */
+		public static Formato resolver(String formato, String tipoContenido, String nombreArchivo) {
+			if (formato != null && !formato.isBlank()) {
+				String valor = formato.trim().toLowerCase(Locale.ROOT);
+				for (Formato f : values()) {
+					if (f.extension.equals(valor)) {
+						return f;
+					}
+				}
+				throw new IllegalArgumentException("Formato no soportado: " + formato + ". Use csv o jsonl");
+			}
+			if (tipoContenido != null) {
+				String tipo = tipoContenido.toLowerCase(Locale.ROOT);
+				if (tipo.startsWith("text/csv")) {
+					return CSV;
+				}
+				if (tipo.startsWith("application/x-ndjson") || tipo.startsWith("application/jsonl")) {
+					return JSONL;
+				}
+			}
+			if (nombreArchivo != null) {
+				String nombre = nombreArchivo.toLowerCase(Locale.ROOT);
+				if (nombre.endsWith(".csv")) {
+					return CSV;
+				}
+				if (nombre.endsWith(".jsonl") || nombre.endsWith(".ndjson")) {
+					return JSONL;
+				}
+			}
+			throw new IllegalArgumentException("No se pudo determinar el formato. Use el parámetro formato=csv o formato=jsonl");
+		}
+	}
+
+	/**
+	 * Fila leída de la entrada: campos por columna, o el error de lectura de esa fila
+	 */
+	private record Fila(long linea, Map<String, String> campos, String error) {}
+
+	/**
+	 * Lector de filas en streaming (una implementación por formato)
+	 */
+	private interface LectorFilas {
+		// null al llegar al final de la entrada
+		Fila siguiente() throws IOException;
+	}
+
+	@Autowired
+	private productoRepository productoRepo;
+
+	@Autowired
+	private productoService productoService;
+
+	@Autowired
+	private indiceBusquedaService indiceBusqueda;
+
+	@Autowired
+	private detalleProductoService detalleProductoService;
+
+	@Autowired
+	private estadisticasService estadisticasService;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	// Filas por lote (una transacción y una consulta IN por lote; también tamaño de ventana al exportar)
+	@Value("${productos.importacion.lote:1000}")
+	private int tamanoLote;
+
+	/**
+	 * Importar productos desde la entrada: crea los nuevos y actualiza los existentes (por nombre)
+	 *
+	 * @param entrada Contenido en UTF-8
+	 * @param formato CSV (con encabezado) o JSON lines (un objeto por línea)
+	 * @return Resumen con filas leídas, creadas, actualizadas, duplicadas y rechazadas
+	 * @throws IllegalArgumentException si el encabezado CSV no tiene las columnas obligatorias
+	 */
+	public ResultadoImportacion importar(InputStream entrada, Formato formato) throws IOException {
+		long inicio = System.nanoTime();
+		ResultadoImportacion resultado = new ResultadoImportacion();
+
+		BufferedReader lector = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+		LectorFilas filas = formato == Formato.CSV ? new LectorCsv(lector) : new LectorJsonl(lector);
+
+		// Lote actual deduplicado por nombre (sin distinguir mayúsculas ni acentos, como la colación de MySQL);
+		// gana la última fila
+		Map<String, producto> lote = new LinkedHashMap<>();
+		long primeraLinea = 0;
+		long ultimaLinea = 0;
+
+		Fila fila;
+		while ((fila = filas.siguiente()) != null) {
+			resultado.sumarLeidos(1);
+
+			producto producto;
+			try {
+				if (fila.error() != null) {
+					throw new IllegalArgumentException(fila.error());
+				}
+				producto = convertir(fila.campos());
+			} catch (IllegalArgumentException e) {
+				resultado.rechazar(1, "Línea " + fila.linea() + ": " + e.getMessage());
+				continue;
+			}
+
+			if (lote.isEmpty()) {
+				primeraLinea = fila.linea();
+			}
+			ultimaLinea = fila.linea();
+			if (lote.put(indiceBusquedaService.normalizar(producto.getNombreProducto()), producto) != null) {
+				resultado.sumarDuplicados(1);
+			}
+
+			if (lote.size() >= tamanoLote) {
+				guardarLote(lote, primeraLinea, ultimaLinea, resultado);
+				lote.clear();
+			}
+		}
+		if (!lote.isEmpty()) {
+			guardarLote(lote, primeraLinea, ultimaLinea, resultado);
+		}
+
+		if (resultado.getCreados() > 0 || resultado.getActualizados() > 0) {
+			estadisticasService.invalidar();
+		}
+
+		resultado.setDuracionMs((System.nanoTime() - inicio) / 1_000_000);
+		log.info("Importación {}: {} leídos, {} creados, {} actualizados, {} duplicados, {} rechazados en {} ms",
+				formato, resultado.getLeidos(), resultado.getCreados(), resultado.getActualizados(),
+				resultado.getDuplicados(), resultado.getRechazados(), resultado.getDuracionMs());
+		return resultado;
+	}
+
+	/**
+	 * Exportar todos los productos en el formato indicado, escribiendo por ventanas de keyset
+	 *
+	 * @return Cantidad de productos exportados
+	 */
+	public long exportar(OutputStream salida, Formato formato) throws IOException {
+		Writer escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+		if (formato == Formato.CSV) {
+			escritor.write(String.join(",", COLUMNAS));
+			escritor.write("\r\n");
+		}
+
+		long exportados = 0;
+		Sort orden = Sort.by("idProducto");
+		ScrollPosition posicion = ScrollPosition.keyset();
+		Window<producto> ventana;
+		do {
+			ventana = productoRepo.findBy(posicion, orden, Limit.of(tamanoLote));
+			for (producto producto : ventana) {
+				if (formato == Formato.CSV) {
+					escribirCsv(escritor, producto);
+				} else {
+					escribirJsonl(escritor, producto);
+				}
+			}
+			exportados += ventana.size();
+			if (ventana.isEmpty()) {
+				break;
+			}
+			posicion = ventana.positionAt(ventana.size() - 1);
+		} while (ventana.hasNext());
+
+		escritor.flush();
+		log.info("Exportación {}: {} productos", formato, exportados);
+		return exportados;
+	}
+
+	// ==================== MÉTODOS PRIVADOS ====================
+
+	/**
+	 * Guardar un lote en una transacción: un SELECT ... IN para los existentes y luego INSERT/UPDATE en lotes JDBC
+	 * El índice de búsqueda y los caches se actualizan solo si el lote se confirmó
+	 */
+	private void guardarLote(Map<String, producto> lote, long primeraLinea, long ultimaLinea, ResultadoImportacion resultado) {
+		List<producto> guardados = new ArrayList<>(lote.size());
+		List<Long> idsActualizados = new ArrayList<>();
+
+		try {
+			new TransactionTemplate(transactionManager).executeWithoutResult(estado -> {
+				entityManager.unwrap(Session.class).setJdbcBatchSize(tamanoLote);
+
+				List<String> nombres = lote.values().stream().map(producto::getNombreProducto).toList();
+				Map<String, producto> existentes = new HashMap<>();
+				for (producto existente : productoRepo.findByNombreProductoIn(nombres)) {
+					// Misma clave que el lote: IN devuelve "Tiramisú" al buscar "Tiramisu" y el INSERT chocaría con la clave única
+					existentes.put(indiceBusquedaService.normalizar(existente.getNombreProducto()), existente);
+				}
+
+				for (Map.Entry<String, producto> entrada : lote.entrySet()) {
+					producto nuevo = entrada.getValue();
+					producto existente = existentes.get(entrada.getKey());
+					if (existente == null) {
+						guardados.add(nuevo);
+						continue;
+					}
+					existente.setNombreProducto(nuevo.getNombreProducto());
+					existente.setPrecioProducto(nuevo.getPrecioProducto());
+					existente.setRutaImagenProducto(nuevo.getRutaImagenProducto());
+					existente.setDescripcionProducto(nuevo.getDescripcionProducto());
+					existente.setIngredientesProducto(nuevo.getIngredientesProducto());
+					guardados.add(existente);
+					idsActualizados.add(existente.getIdProducto());
+				}
+
+				productoRepo.saveAll(guardados);
+				productoRepo.flush();
+			});
+		} catch (DataAccessException | TransactionException e) {
+			log.warn("Importación: lote de líneas {}-{} rechazado", primeraLinea, ultimaLinea, e);
+			resultado.rechazar(lote.size(), "Líneas " + primeraLinea + "-" + ultimaLinea
+					+ ": lote rechazado (" + e.getMostSpecificCause().getMessage() + ")");
+			return;
+		}
+
+		indiceBusqueda.indexarProductos(guardados);
+		idsActualizados.forEach(detalleProductoService::invalidar);
+		resultado.sumarCreados(guardados.size() - idsActualizados.size());
+		resultado.sumarActualizados(idsActualizados.size());
+	}
+
+	/**
+	 * Convertir y validar los campos de una fila
+	 */
+	private producto convertir(Map<String, String> campos) {
+		producto producto = new producto();
+		producto.setNombreProducto(recortar(campos.get("nombreProducto")));
+		producto.setPrecioProducto(convertirPrecio(campos.get("precioProducto")));
+		producto.setRutaImagenProducto(recortar(campos.get("rutaImagenProducto")));
+		producto.setDescripcionProducto(recortar(campos.get("descripcionProducto")));
+		producto.setIngredientesProducto(recortar(campos.get("ingredientesProducto")));
+		producto.setCalificacionProducto(0.0);
+
+		productoService.validarProducto(producto);
+		if (producto.getNombreProducto().length() > LONGITUD_MAXIMA_NOMBRE) {
+			throw new IllegalArgumentException("El nombre supera " + LONGITUD_MAXIMA_NOMBRE + " caracteres");
+		}
+		if (producto.getRutaImagenProducto().length() > LONGITUD_MAXIMA_RUTA) {
+			throw new IllegalArgumentException("La ruta de la imagen supera " + LONGITUD_MAXIMA_RUTA + " caracteres");
+		}
+		return producto;
+	}
+
+	private Double convertirPrecio(String valor) {
+		if (valor == null || valor.isBlank()) {
+			return null;
+		}
+		try {
+			double precio = Double.parseDouble(valor.trim());
+			if (!Double.isFinite(precio)) {
+				throw new NumberFormatException();
+			}
+			return precio;
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Precio inválido: " + valor);
+		}
+	}
+
+	private String recortar(String valor) {
+		if (valor == null) {
+			return null;
+		}
+		String recortado = valor.trim();
+		return recortado.isEmpty() ? null : recortado;
+	}
+
+	private void escribirCsv(Writer escritor, producto producto) throws IOException {
+		escritor.write(escaparCsv(producto.getNombreProducto()));
+		escritor.write(',');
+		escritor.write(String.valueOf(producto.getPrecioProducto()));
+		escritor.write(',');
+		escritor.write(escaparCsv(producto.getRutaImagenProducto()));
+		escritor.write(',');
+		escritor.write(escaparCsv(producto.getDescripcionProducto()));
+		escritor.write(',');
+		escritor.write(escaparCsv(producto.getIngredientesProducto()));
+		escritor.write("\r\n");
+	}
+
+	/**
+	 * Escapar un campo CSV (RFC 4180): entre comillas si contiene separadores, comillas o saltos de línea
+	 * Los campos que empiezan con =, +, -, @, tabulador o retorno de carro se anteponen con ' y van entre comillas:
+	 * Excel y LibreOffice los interpretarían como fórmula al abrir el archivo (inyección de fórmulas CSV).
+	 * LectorCsv quita ese apóstrofo al importar, así exportar y volver a importar no altera los datos.
+	 */
+	private String escaparCsv(String valor) {
+		if (valor == null) {
+			return "";
+		}
+		boolean formula = !valor.isEmpty() && INICIO_FORMULA.indexOf(valor.charAt(0)) >= 0;
+		if (!formula && valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+			return valor;
+		}
+		return "\"" + (formula ? "'" : "") + valor.replace("\"", "\"\"") + "\"";
+	}
+
+	private void escribirJsonl(Writer escritor, producto producto) throws IOException {
+		Map<String, Object> fila = new LinkedHashMap<>();
+		fila.put("nombreProducto", producto.getNombreProducto());
+		fila.put("precioProducto", producto.getPrecioProducto());
+		fila.put("rutaImagenProducto", producto.getRutaImagenProducto());
+		fila.put("descripcionProducto", producto.getDescripcionProducto());
+		fila.put("ingredientesProducto", producto.getIngredientesProducto());
+		escritor.write(objectMapper.writeValueAsString(fila));
+		escritor.write('\n');
+	}
+
+	/**
+	 * Lector CSV (RFC 4180) con encabezado: soporta campos entre comillas con comas, comillas dobles
+	 * y saltos de línea. Las columnas desconocidas se ignoran y las líneas vacías se omiten.
+	 */
+	private static class LectorCsv implements LectorFilas {
+
+		// BufferedReader para poder mirar el carácter siguiente a una comilla (mark/reset)
+		private final BufferedReader lector;
+		private final List<String> encabezado;
+		private long linea = 1;
+		private boolean fin;
+
+		LectorCsv(BufferedReader lector) throws IOException {
+			this.lector = lector;
+			List<String> columnas = leerRegistro();
+			if (columnas == null) {
+				throw new IllegalArgumentException("El archivo CSV está vacío");
+			}
+			encabezado = new ArrayList<>();
+			for (String columna : columnas) {
+				// Quitar el BOM que agregan algunas hojas de cálculo
+				encabezado.add(columna.replace("\uFEFF", "").trim());
+			}
+			if (!encabezado.contains("nombreProducto")) {
+				throw new IllegalArgumentException("El encabezado CSV debe incluir las columnas: " + String.join(",", COLUMNAS));
+			}
+		}
+
+		@Override
+		public Fila siguiente() throws IOException {
+			while (true) {
+				long lineaInicio = linea;
+				List<String> valores = leerRegistro();
+				if (valores == null) {
+					return null;
+				}
+				if (valores.size() == 1 && valores.get(0).isBlank()) {
+					continue;
+				}
+				if (valores.size() > encabezado.size()) {
+					return new Fila(lineaInicio, null, "Se esperaban " + encabezado.size() + " columnas y hay " + valores.size());
+				}
+
+				Map<String, String> campos = new HashMap<>();
+				for (int i = 0; i < valores.size(); i++) {
+					campos.put(encabezado.get(i), quitarPrefijoFormula(valores.get(i)));
+				}
+				return new Fila(lineaInicio, campos, null);
+			}
+		}
+
+		/**
+		 * Quitar el apóstrofo que escaparCsv antepone a los campos que parecen fórmulas
+		 * Solo si lo sigue un carácter de INICIO_FORMULA: otros textos que empiezan con ' se conservan
+		 */
+		private static String quitarPrefijoFormula(String valor) {
+			if (valor.length() > 1 && valor.charAt(0) == '\'' && INICIO_FORMULA.indexOf(valor.charAt(1)) >= 0) {
+				return valor.substring(1);
+			}
+			return valor;
+		}
+
+		/**
+		 * Leer un registro completo (puede abarcar varias líneas físicas); null al final de la entrada
+		 */
+		private List<String> leerRegistro() throws IOException {
+			if (fin) {
+				return null;
+			}
+
+			List<String> valores = new ArrayList<>();
+			StringBuilder campo = new StringBuilder();
+			boolean entreComillas = false;
+			boolean leyoAlgo = false;
+
+			int c;
+			while ((c = lector.read()) != -1) {
+				leyoAlgo = true;
+				char caracter = (char) c;
+
+				if (entreComillas) {
+					if (caracter == '"') {
+						lector.mark(1);
+						int siguiente = lector.read();
+						if (siguiente == '"') {
+							campo.append('"');
+						} else {
+							entreComillas = false;
+							if (siguiente != -1) {
+								lector.reset();
+							}
+						}
+					} else {
+						if (caracter == '\n') {
+							linea++;
+						}
+						campo.append(caracter);
+					}
+				} else if (caracter == '"' && campo.isEmpty()) {
+					entreComillas = true;
+				} else if (caracter == ',') {
+					valores.add(campo.toString());
+					campo.setLength(0);
+				} else if (caracter == '\r') {
+					// Se ignora; el fin de registro lo marca '\n'
+				} else if (caracter == '\n') {
+					linea++;
+					valores.add(campo.toString());
+					return valores;
+				} else {
+					campo.append(caracter);
+				}
+			}
+
+			fin = true;
+			if (!leyoAlgo) {
+				return null;
+			}
+			valores.add(campo.toString());
+			return valores;
+		}
+	}
+
+	/**
+	 * Lector JSON lines: un objeto JSON por línea, las líneas vacías se omiten
+	 */
+	private class LectorJsonl implements LectorFilas {
+
+		private final BufferedReader lector;
+		private long linea;
+
+		LectorJsonl(BufferedReader lector) {
+			this.lector = lector;
+		}
+
+		@Override
+		public Fila siguiente() throws IOException {
+			String texto;
+			while ((texto = lector.readLine()) != null) {
+				linea++;
+				if (texto.isBlank()) {
+					continue;
+				}
+
+				JsonNode nodo;
+				try {
+					nodo = objectMapper.readTree(texto);
+				} catch (JsonProcessingException e) {
+					return new Fila(linea, null, "JSON inválido: " + e.getOriginalMessage());
+				}
+				if (nodo == null || !nodo.isObject()) {
+					return new Fila(linea, null, "Se esperaba un objeto JSON");
+				}
+
+				Map<String, String> campos = new HashMap<>();
+				for (String columna : COLUMNAS) {
+					JsonNode valor = nodo.get(columna);
+					if (valor != null && !valor.isNull()) {
+						campos.put(columna, valor.asText());
+					}
+				}
+				return new Fila(linea, campos, null);
+			}
+			return null;
+		}
+	}
+}
@@ -0,0 +1,311 @@
+package edu.com.co.Proyecto.Final.Service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import io.micrometer.core.annotation.Timed;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import edu.com.co.Proyecto.Final.Model.producto;
+import edu.com.co.Proyecto.Final.Repository.productoRepository;
+
+/**
+ * Índice invertido en memoria sobre nombre, descripción e ingredientes de los productos
+ * Reemplaza el LIKE '%termino%' de productoRepository.buscarProductos, que no puede usar índices
+ *
+ * - Tokenización sin acentos y sin mayúsculas; las palabras vacías del español se indexan pero se ignoran en
+ *   la consulta, salvo que solo tenga palabras vacías (ej: "de"), que entonces se buscan tal cual
+ * - Búsqueda por prefijo (ej: "choco" encuentra "chocolate")
+ * - Resultados ordenados por relevancia (TF-IDF ponderado por campo)
+ */
+@Service
+@Timed("servicio")
+public class indiceBusquedaService {
+
+	private static final Logger log = LoggerFactory.getLogger(indiceBusquedaService.class);
+
+	// Pesos por campo: una coincidencia en el nombre vale más que en la descripción
+	private static final double PESO_NOMBRE = 3.0;
+	private static final double PESO_INGREDIENTES = 2.0;
+	private static final double PESO_DESCRIPCION = 1.0;
+
+	// Penalización para coincidencias por prefijo frente a coincidencias exactas
+	private static final double FACTOR_PREFIJO = 0.5;
+
+	// Máximo de términos expandidos por cada prefijo, para acotar la latencia
+	private static final int MAX_EXPANSIONES_PREFIJO = 64;
+
+	private static final Pattern DIACRITICOS = Pattern.compile("\\p{M}+");
+	private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+	private static final Set<String> PALABRAS_VACIAS = Set.of(
+		"a", "al", "con", "de", "del", "el", "en", "es", "la", "las", "lo", "los",
+		"o", "para", "por", "se", "sin", "su", "sus", "un", "una", "unos", "unas", "y"
+	);
+
+	@Autowired
+	private productoRepository productoRepo;
+
+	// termino -> (idProducto -> peso acumulado del término en el producto)
+	private final NavigableMap<String, Map<Long, Double>> indice = new TreeMap<>();
+
+	// idProducto -> términos indexados, para poder retirar un producto del índice
+	private final Map<Long, Set<String>> terminosPorProducto = new HashMap<>();
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * Reconstruir el índice completo al arrancar la aplicación
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void reconstruirIndice() {
+		List<producto> productos = productoRepo.findAll();
+
+		lock.writeLock().lock();
+		try {
+			indice.clear();
+			terminosPorProducto.clear();
+			for (producto p : productos) {
+				agregarSinBloqueo(p);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		log.info("Índice de búsqueda construido con {} productos", productos.size());
+	}
+
+	/**
+	 * Indexar (o reindexar) un producto creado o actualizado
+	 */
+	public void indexarProducto(producto producto) {
+		if (producto == null || producto.getIdProducto() == null) {
+			return;
+		}
+
+		lock.writeLock().lock();
+		try {
+			eliminarSinBloqueo(producto.getIdProducto());
+			agregarSinBloqueo(producto);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Indexar (o reindexar) un lote de productos tomando el bloqueo de escritura una sola vez
+	 */
+	public void indexarProductos(Collection<producto> productos) {
+		lock.writeLock().lock();
+		try {
+			for (producto producto : productos) {
+				if (producto.getIdProducto() != null) {
+					eliminarSinBloqueo(producto.getIdProducto());
+					agregarSinBloqueo(producto);
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Retirar un producto eliminado del índice
+	 */
+	public void eliminarProducto(Long idProducto) {
+		lock.writeLock().lock();
+		try {
+			eliminarSinBloqueo(idProducto);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Buscar productos que contengan todos los términos de la consulta (por palabra completa o prefijo)
+	 *
+	 * @param consulta Texto libre ingresado por el usuario
+	 * @param limite Máximo de resultados (los más relevantes)
+	 * @return IDs de producto ordenados por relevancia descendente
+	 */
+	public List<Long> buscar(String consulta, int limite) {
+		List<String> terminosConsulta = tokenizar(consulta);
+		if (terminosConsulta.isEmpty()) {
+			// Consulta solo de palabras vacías: buscarlas en lugar de no devolver nada
+			terminosConsulta = separarTerminos(consulta);
+		}
+		if (terminosConsulta.isEmpty()) {
+			return List.of();
+		}
+
+		lock.readLock().lock();
+		try {
+			int totalProductos = Math.max(terminosPorProducto.size(), 1);
+			Map<Long, Double> puntajes = null;
+
+			for (String termino : new HashSet<>(terminosConsulta)) {
+				Map<Long, Double> puntajesTermino = puntuarTermino(termino, totalProductos);
+
+				if (puntajes == null) {
+					puntajes = puntajesTermino;
+				} else {
+					// Intersección: el producto debe coincidir con todos los términos
+					Map<Long, Double> interseccion = new HashMap<>();
+					for (Map.Entry<Long, Double> entrada : puntajes.entrySet()) {
+						Double puntaje = puntajesTermino.get(entrada.getKey());
+						if (puntaje != null) {
+							interseccion.put(entrada.getKey(), entrada.getValue() + puntaje);
+						}
+					}
+					puntajes = interseccion;
+				}
+
+				if (puntajes.isEmpty()) {
+					return List.of();
+				}
+			}
+
+			// Solo se ordenan los "limite" más relevantes: un término común puede coincidir con todo el catálogo
+			Comparator<Map.Entry<Long, Double>> relevancia = Map.Entry.<Long, Double>comparingByValue().reversed()
+				.thenComparing(Map.Entry.comparingByKey());
+			PriorityQueue<Map.Entry<Long, Double>> mejores = new PriorityQueue<>(limite + 1, relevancia.reversed());
+			for (Map.Entry<Long, Double> entrada : puntajes.entrySet()) {
+				mejores.add(entrada);
+				if (mejores.size() > limite) {
+					mejores.poll();
+				}
+			}
+			List<Map.Entry<Long, Double>> ordenados = new ArrayList<>(mejores);
+			ordenados.sort(relevancia);
+
+			List<Long> ids = new ArrayList<>(ordenados.size());
+			for (Map.Entry<Long, Double> entrada : ordenados) {
+				ids.add(entrada.getKey());
+			}
+			return ids;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Quitar acentos y pasar a minúsculas (ej: "Tiramisú" -> "tiramisu")
+	 * Equivale a la comparación de la colación por defecto de MySQL (utf8mb4_0900_ai_ci)
+	 */
+	public static String normalizar(String texto) {
+		return DIACRITICOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD))
+			.replaceAll("")
+			.toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Normalizar y dividir un texto en términos indexables
+	 * Quita acentos (ej: "Tiramisú" -> "tiramisu") y palabras vacías
+	 */
+	public static List<String> tokenizar(String texto) {
+		List<String> terminos = new ArrayList<>(separarTerminos(texto));
+		terminos.removeIf(PALABRAS_VACIAS::contains);
+		return terminos;
+	}
+
+	// ==================== MÉTODOS PRIVADOS ====================
+
+	/**
+	 * Normalizar y dividir un texto en términos, incluidas las palabras vacías
+	 */
+	private static List<String> separarTerminos(String texto) {
+		if (texto == null || texto.isBlank()) {
+			return List.of();
+		}
+
+		List<String> terminos = new ArrayList<>();
+		for (String token : SEPARADORES.split(normalizar(texto))) {
+			if (!token.isEmpty()) {
+				terminos.add(token);
+			}
+		}
+		return terminos;
+	}
+
+	/**
+	 * Calcular el puntaje de cada producto para un término, combinando la coincidencia exacta
+	 * y las expansiones por prefijo. Debe llamarse con el bloqueo de lectura adquirido.
+	 */
+	private Map<Long, Double> puntuarTermino(String termino, int totalProductos) {
+		Map<Long, Double> puntajes = new HashMap<>();
+		int expansiones = 0;
+
+		for (Map.Entry<String, Map<Long, Double>> entrada
+				: indice.subMap(termino, true, termino + Character.MAX_VALUE, false).entrySet()) {
+			if (expansiones++ >= MAX_EXPANSIONES_PREFIJO) {
+				break;
+			}
+
+			Map<Long, Double> postings = entrada.getValue();
+			double idf = Math.log(1.0 + (double) totalProductos / postings.size());
+			double factor = entrada.getKey().equals(termino) ? 1.0 : FACTOR_PREFIJO;
+
+			for (Map.Entry<Long, Double> posting : postings.entrySet()) {
+				puntajes.merge(posting.getKey(), posting.getValue() * idf * factor, Double::sum);
+			}
+		}
+		return puntajes;
+	}
+
+	private void agregarSinBloqueo(producto producto) {
+		Map<String, Double> pesos = new HashMap<>();
+		acumularPesos(pesos, producto.getNombreProducto(), PESO_NOMBRE);
+		acumularPesos(pesos, producto.getIngredientesProducto(), PESO_INGREDIENTES);
+		acumularPesos(pesos, producto.getDescripcionProducto(), PESO_DESCRIPCION);
+
+		Long idProducto = producto.getIdProducto();
+		for (Map.Entry<String, Double> entrada : pesos.entrySet()) {
+			indice.computeIfAbsent(entrada.getKey(), k -> new HashMap<>())
+				.put(idProducto, entrada.getValue());
+		}
+		terminosPorProducto.put(idProducto, pesos.keySet());
+	}
+
+	private void eliminarSinBloqueo(Long idProducto) {
+		Set<String> terminos = terminosPorProducto.remove(idProducto);
+		if (terminos == null) {
+			return;
+		}
+
+		for (String termino : terminos) {
+			Map<Long, Double> postings = indice.get(termino);
+			if (postings != null) {
+				postings.remove(idProducto);
+				if (postings.isEmpty()) {
+					indice.remove(termino);
+				}
+			}
+		}
+	}
+
+	// Se indexan también las palabras vacías, para las consultas que solo tienen palabras vacías
+	private void acumularPesos(Map<String, Double> pesos, String texto, double pesoCampo) {
+		for (String termino : separarTerminos(texto)) {
+			pesos.merge(termino, pesoCampo, Double::sum);
+		}
+	}
+}
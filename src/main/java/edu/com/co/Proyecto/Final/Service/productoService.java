@@ -1,25 +1,72 @@
 package edu.com.co.Proyecto.Final.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import io.micrometer.core.annotation.Timed;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 
+import edu.com.co.Proyecto.Final.Model.PaginaProductos;
 import edu.com.co.Proyecto.Final.Model.producto;
 import edu.com.co.Proyecto.Final.Repository.productoRepository;
 
 @Service
+@Timed("servicio")
 public class productoService {
 	
+	// Límites de tamaño de página del catálogo
+	public static final int TAMANO_PAGINA_DEFECTO = 12;
+	public static final int TAMANO_PAGINA_MAXIMO = 48;
+	
 	@Autowired
 	private productoRepository productoRepo;
 	
+	@Autowired
+	private indiceBusquedaService indiceBusqueda;
+	
+	@Autowired
+	private estadisticasService estadisticasService;
+	
+	@Autowired
+	private detalleProductoService detalleProductoService;
+	
 	// Obtener todos los productos
 	public List<producto> obtenerTodosProductos() {
 		return productoRepo.findAll();
 	}
 	
+	// Obtener una página del catálogo ordenada y paginada por cursor (keyset)
+	// El cursor es opaco para el cliente y codifica el valor de orden y el ID del último producto
+	public PaginaProductos obtenerPaginaProductos(String orden, String cursor, Integer tamano) {
+		PaginaProductos.Orden ordenCatalogo = PaginaProductos.Orden.desde(orden);
+		int tamanoPagina = normalizarTamanoPagina(tamano);
+		
+		Sort.Direction direccion = ordenCatalogo.isAscendente() ? Sort.Direction.ASC : Sort.Direction.DESC;
+		Sort sort = Sort.by(direccion, ordenCatalogo.getPropiedad(), "idProducto");
+		
+		Window<producto> ventana = productoRepo.findBy(
+				decodificarCursor(ordenCatalogo, cursor), sort, Limit.of(tamanoPagina));
+		
+		List<producto> productos = ventana.getContent();
+		String siguienteCursor = null;
+		if (ventana.hasNext() && !productos.isEmpty()) {
+			siguienteCursor = codificarCursor(ordenCatalogo, productos.get(productos.size() - 1));
+		}
+		
+		return new PaginaProductos(productos, ordenCatalogo, tamanoPagina, siguienteCursor);
+	}
+	
 	// Obtener producto por ID
 	public Optional<producto> obtenerProductoPorId(Long idProducto) {
 		return productoRepo.findById(idProducto);
@@ -39,7 +86,10 @@ public class productoService {
 			throw new IllegalArgumentException("El nombre del producto ya existe");
 		}
 		
-		return productoRepo.save(producto);
+		producto productoGuardado = productoRepo.save(producto);
+		indiceBusqueda.indexarProducto(productoGuardado);
+		estadisticasService.invalidar();
+		return productoGuardado;
 	}
 	
 	// Actualizar producto
@@ -71,7 +121,10 @@ public class productoService {
 			producto.setIngredientesProducto(productoActualizado.getIngredientesProducto());
 		}
 		
-		return productoRepo.save(producto);
+		producto productoGuardado = productoRepo.save(producto);
+		indiceBusqueda.indexarProducto(productoGuardado);
+		detalleProductoService.invalidar(idProducto);
+		return productoGuardado;
 	}
 	
 	// Eliminar producto
@@ -80,10 +133,13 @@ public class productoService {
 			throw new IllegalArgumentException("El producto con ID " + idProducto + " no existe");
 		}
 		productoRepo.deleteById(idProducto);
+		indiceBusqueda.eliminarProducto(idProducto);
+		detalleProductoService.invalidar(idProducto);
+		estadisticasService.invalidar();
 	}
 	
-	// Método de validación privado
-	private void validarProducto(producto producto) {
+	// Método de validación (compartido con la importación masiva)
+	void validarProducto(producto producto) {
 		if (producto.getNombreProducto() == null || producto.getNombreProducto().trim().isEmpty()) {
 			throw new IllegalArgumentException("El nombre del producto no puede estar vacío");
 		}
@@ -98,11 +154,77 @@ public class productoService {
 		}
 	}
 	
-	// Buscar productos por nombre, descripción o ingredientes
+	// Buscar productos por nombre, descripción o ingredientes usando el índice invertido
+	// Los resultados se devuelven ordenados por relevancia, hasta TAMANO_PAGINA_MAXIMO
 	public List<producto> buscarProductos(String termino) {
+		return buscarProductos(termino, null);
+	}
+	
+	// Buscar productos devolviendo solo los más relevantes (ver limiteBusqueda)
+	public List<producto> buscarProductos(String termino, Integer tamano) {
 		if (termino == null || termino.trim().isEmpty()) {
-			return obtenerTodosProductos();
+			return obtenerPaginaProductos(null, null, tamano).getProductos();
+		}
+		
+		List<Long> idsOrdenados = indiceBusqueda.buscar(termino, limiteBusqueda(tamano));
+		if (idsOrdenados.isEmpty()) {
+			return List.of();
+		}
+		
+		Map<Long, producto> productosPorId = new HashMap<>();
+		for (producto p : productoRepo.findAllById(idsOrdenados)) {
+			productosPorId.put(p.getIdProducto(), p);
+		}
+		
+		return idsOrdenados.stream()
+				.map(productosPorId::get)
+				.filter(p -> p != null)
+				.toList();
+	}
+	
+	// Máximo de resultados de una búsqueda: el tamaño solicitado acotado, o TAMANO_PAGINA_MAXIMO si no se indica
+	// La búsqueda no se pagina (el orden por relevancia cambia con el índice); se muestran los más relevantes
+	public int limiteBusqueda(Integer tamano) {
+		return tamano == null ? TAMANO_PAGINA_MAXIMO : normalizarTamanoPagina(tamano);
+	}
+	
+	// Acotar el tamaño de página solicitado (privado)
+	private int normalizarTamanoPagina(Integer tamano) {
+		if (tamano == null || tamano <= 0) {
+			return TAMANO_PAGINA_DEFECTO;
+		}
+		return Math.min(tamano, TAMANO_PAGINA_MAXIMO);
+	}
+	
+	// Codificar el cursor como Base64 URL de "valor|id" (privado)
+	private String codificarCursor(PaginaProductos.Orden orden, producto ultimo) {
+		Object valor = switch (orden) {
+			case NOMBRE -> ultimo.getNombreProducto();
+			case PRECIO_ASC, PRECIO_DESC -> ultimo.getPrecioProducto();
+			case CALIFICACION -> ultimo.getCalificacionProducto();
+		};
+		String crudo = valor + "|" + ultimo.getIdProducto();
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(crudo.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	// Decodificar el cursor; un cursor ausente o inválido vuelve a la primera página (privado)
+	private ScrollPosition decodificarCursor(PaginaProductos.Orden orden, String cursor) {
+		if (cursor == null || cursor.isBlank()) {
+			return ScrollPosition.keyset();
+		}
+		
+		try {
+			String crudo = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			int separador = crudo.lastIndexOf('|');
+			String valor = crudo.substring(0, separador);
+			Long idProducto = Long.valueOf(crudo.substring(separador + 1));
+			
+			Map<String, Object> claves = new LinkedHashMap<>();
+			claves.put(orden.getPropiedad(), orden == PaginaProductos.Orden.NOMBRE ? valor : Double.valueOf(valor));
+			claves.put("idProducto", idProducto);
+			return ScrollPosition.forward(claves);
+		} catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+			return ScrollPosition.keyset();
 		}
-		return productoRepo.buscarProductos(termino);
 	}
-}
\ No newline at end of file
+}
@@ -1,21 +1,46 @@
 package edu.com.co.Proyecto.Final.Service;
 
+import java.time.ZoneId;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
+import io.micrometer.core.annotation.Timed;
+
+import org.hibernate.Hibernate;
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import edu.com.co.Proyecto.Final.Model.DetalleProducto;
+import edu.com.co.Proyecto.Final.Model.FiltroResenas;
+import edu.com.co.Proyecto.Final.Model.PaginaResenas;
+import edu.com.co.Proyecto.Final.Model.ResenaPerfil;
+import edu.com.co.Proyecto.Final.Model.ResenaResumen;
 import edu.com.co.Proyecto.Final.Model.resena;
 import edu.com.co.Proyecto.Final.Model.producto;
-import edu.com.co.Proyecto.Final.Model.usuario;
 import edu.com.co.Proyecto.Final.Repository.resenaRepository;
 import edu.com.co.Proyecto.Final.Repository.productoRepository;
 import edu.com.co.Proyecto.Final.Repository.usuarioRepository;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
 @Service
+@Timed("servicio")
 public class resenaService {
 	
+	private static final Logger log = LoggerFactory.getLogger(resenaService.class);
+	
+	// Límites de tamaño de página de las reseñas de un producto
+	public static final int TAMANO_PAGINA_DEFECTO = 10;
+	public static final int TAMANO_PAGINA_MAXIMO = 50;
+	
 	@Autowired
 	private resenaRepository resenaRepo;
 	
@@ -25,6 +50,12 @@ public class resenaService {
 	@Autowired
 	private usuarioRepository usuarioRepo;
 	
+	@Autowired
+	private detalleProductoService detalleProductoService;
+	
+	@PersistenceContext
+	private EntityManager entityManager;
+	
 	// Obtener todas las reseñas
 	public List<resena> obtenerTodasResenas() {
 		return resenaRepo.findAll();
@@ -35,28 +66,32 @@ public class resenaService {
 		return resenaRepo.findById(idResena);
 	}
 	
-	// Obtener reseñas de un producto
+	// Obtener reseña por ID junto con su producto (una sola consulta)
+	public Optional<resena> obtenerResenaConProducto(Long idResena) {
+		return resenaRepo.buscarConProducto(idResena);
+	}
+	
+	// Obtener reseñas de un producto con sus autores cargados (una sola consulta, sin N+1)
 	public List<resena> obtenerResenasPorProducto(Long idProducto) {
-		Optional<producto> productoOpt = productoRepo.findById(idProducto);
-		
-		if (!productoOpt.isPresent()) {
+		if (!productoRepo.existsById(idProducto)) {
 			throw new IllegalArgumentException("El producto con ID " + idProducto + " no existe");
 		}
 		
-		producto p = productoOpt.get();
-		return p.getResenas() != null ? p.getResenas() : List.of();
+		return resenaRepo.buscarPorProductoConUsuario(idProducto);
 	}
 	
-	// Obtener reseñas de un usuario
+	// Obtener reseñas de un usuario con sus productos cargados (una sola consulta, sin N+1)
 	public List<resena> obtenerResenasPorUsuario(Long idUsuario) {
-		Optional<usuario> usuarioOpt = usuarioRepo.findById(idUsuario);
-		
-		if (!usuarioOpt.isPresent()) {
+		if (!usuarioRepo.existsById(idUsuario)) {
 			throw new IllegalArgumentException("El usuario con ID " + idUsuario + " no existe");
 		}
 		
-		usuario u = usuarioOpt.get();
-		return u.getResenas() != null ? u.getResenas() : List.of();
+		return resenaRepo.buscarPorUsuarioConProducto(idUsuario);
+	}
+	
+	// Obtener el resumen de las reseñas de un usuario para su perfil (proyección de solo lectura)
+	public List<ResenaPerfil> obtenerResenasPerfil(Long idUsuario) {
+		return resenaRepo.findResumenesPorUsuario(idUsuario);
 	}
 	
 	// Obtener reseña existente de un usuario para un producto específico
@@ -65,6 +100,7 @@ public class resenaService {
 	}
 	
 	// Crear nueva reseña
+	@Transactional
 	public resena crearResena(Long idUsuario, Long idProducto, Integer calificacion, String comentario) {
 		// Validar calificación
 		if (calificacion == null || calificacion < 1 || calificacion > 5) {
@@ -72,41 +108,41 @@ public class resenaService {
 		}
 		
 		// Validar existencia de usuario
-		Optional<usuario> usuarioOpt = usuarioRepo.findById(idUsuario);
-		if (!usuarioOpt.isPresent()) {
+		if (!usuarioRepo.existsById(idUsuario)) {
 			throw new IllegalArgumentException("El usuario con ID " + idUsuario + " no existe");
 		}
 		
 		// Validar existencia de producto
-		Optional<producto> productoOpt = productoRepo.findById(idProducto);
-		if (!productoOpt.isPresent()) {
+		if (!productoRepo.existsById(idProducto)) {
 			throw new IllegalArgumentException("El producto con ID " + idProducto + " no existe");
 		}
 		
-		// Validar que el usuario no haya dejado ya una reseña en este producto
-		List<resena> resenasPorUsuario = obtenerResenasPorUsuario(idUsuario);
-		boolean yaExisteResena = resenasPorUsuario.stream()
-				.anyMatch(r -> r.getProducto().getIdProducto().equals(idProducto));
-		
-		if (yaExisteResena) {
-			throw new IllegalArgumentException("El usuario ya ha dejado una reseña en este producto");
-		}
-		
 		// Crear la reseña
-		resena nuevaResena = new resena(usuarioOpt.get(), productoOpt.get(), calificacion);
+		resena nuevaResena = new resena(usuarioRepo.getReferenceById(idUsuario), productoRepo.getReferenceById(idProducto), calificacion);
 		if (comentario != null && !comentario.trim().isEmpty()) {
 			nuevaResena.setComentarioResena(comentario);
 		}
 		
-		resena resenaGuardada = resenaRepo.save(nuevaResena);
+		// Un solo INSERT: la restricción única (usuario, producto) rechaza la reseña duplicada,
+		// incluso si dos envíos concurrentes pasan las validaciones al mismo tiempo
+		resena resenaGuardada;
+		try {
+			resenaGuardada = resenaRepo.saveAndFlush(nuevaResena);
+		} catch (DataIntegrityViolationException e) {
+			if (esResenaDuplicada(e)) {
+				throw new IllegalArgumentException("El usuario ya ha dejado una reseña en este producto");
+			}
+			throw e;
+		}
 		
-		// Actualizar calificación promedio del producto
-		actualizarCalificacionProducto(idProducto);
+		// Actualizar agregados de calificación del producto
+		actualizarCalificacionProducto(idProducto, null, calificacion);
 		
 		return resenaGuardada;
 	}
 	
 	// Actualizar reseña
+	@Transactional
 	public resena actualizarResena(Long idResena, Integer calificacion, String comentario) {
 		Optional<resena> resenaOpt = resenaRepo.findById(idResena);
 		
@@ -121,6 +157,7 @@ public class resenaService {
 		
 		resena resena = resenaOpt.get();
 		Long idProducto = resena.getProducto().getIdProducto();
+		Integer calificacionAnterior = resena.getCalificacion();
 		
 		if (calificacion != null) {
 			resena.setCalificacion(calificacion);
@@ -131,13 +168,14 @@ public class resenaService {
 		
 		resena resenaActualizada = resenaRepo.save(resena);
 		
-		// Actualizar calificación promedio del producto
-		actualizarCalificacionProducto(idProducto);
+		// Actualizar agregados de calificación del producto
+		actualizarCalificacionProducto(idProducto, calificacionAnterior, resenaActualizada.getCalificacion());
 		
 		return resenaActualizada;
 	}
 	
 	// Eliminar reseña
+	@Transactional
 	public void eliminarResena(Long idResena) {
 		Optional<resena> resenaOpt = resenaRepo.findById(idResena);
 		
@@ -146,59 +184,166 @@ public class resenaService {
 		}
 		
 		Long idProducto = resenaOpt.get().getProducto().getIdProducto();
+		Integer calificacionAnterior = resenaOpt.get().getCalificacion();
 		resenaRepo.deleteById(idResena);
 		
-		// Actualizar calificación promedio del producto
-		actualizarCalificacionProducto(idProducto);
+		// Actualizar agregados de calificación del producto
+		actualizarCalificacionProducto(idProducto, calificacionAnterior, null);
 	}
 	
-	// Obtener calificación promedio de un producto
+	// Revertir los agregados de los productos reseñados por un usuario antes de eliminarlo
+	// (sus reseñas se borran en cascada sin pasar por eliminarResena)
+	@Transactional
+	public void revertirCalificacionesDeUsuario(Long idUsuario) {
+		for (Object[] fila : resenaRepo.findCalificacionesPorUsuario(idUsuario)) {
+			actualizarCalificacionProducto((Long) fila[0], (Integer) fila[1], null);
+		}
+	}
+	
+	// Obtener calificación promedio de un producto (O(1) a partir de los agregados)
 	public Double obtenerCalificacionPromedio(Long idProducto) {
-		List<resena> resenas = obtenerResenasPorProducto(idProducto);
+		producto p = obtenerProductoExistente(idProducto);
 		
-		if (resenas.isEmpty()) {
+		if (p.getCantidadResenas() == null || p.getCantidadResenas() == 0) {
 			return 0.0;
 		}
 		
-		return resenas.stream()
-				.mapToDouble(resena::getCalificacion)
-				.average()
-				.orElse(0.0);
+		return (double) p.getSumaCalificaciones() / p.getCantidadResenas();
 	}
 	
 	// Obtener cantidad de reseñas de un producto
 	public Integer obtenerCantidadResenas(Long idProducto) {
-		return obtenerResenasPorProducto(idProducto).size();
+		Integer cantidad = obtenerProductoExistente(idProducto).getCantidadResenas();
+		return cantidad != null ? cantidad : 0;
 	}
 	
-	// Obtener reseñas por calificación
-	public List<resena> obtenerResenasPorCalificacion(Long idProducto, Integer calificacion) {
-		if (calificacion == null || calificacion < 1 || calificacion > 5) {
+	// Obtener la primera página de reseñas de un producto con una calificación
+	public PaginaResenas obtenerResenasPorCalificacion(Long idProducto, Integer calificacion) {
+		return obtenerPaginaResenas(idProducto,
+				new FiltroResenas(calificacion, false, null, null, PaginaResenas.Orden.RECIENTES), null, null);
+	}
+	
+	// Obtener la primera página de reseñas de un producto que tienen comentario
+	public PaginaResenas obtenerResenasPorProductoConComentario(Long idProducto) {
+		return obtenerPaginaResenas(idProducto,
+				new FiltroResenas(null, true, null, null, PaginaResenas.Orden.RECIENTES), null, null);
+	}
+	
+	// Obtener una página de reseñas para la vista de detalle de un producto
+	// La primera página con el filtro por defecto ya viene en el detalle cacheado y no consulta la base de datos
+	public PaginaResenas obtenerPaginaResenas(DetalleProducto detalle, FiltroResenas filtro, String cursor, Integer tamano) {
+		boolean primeraPaginaPorDefecto = (filtro == null || filtro.isPorDefecto())
+				&& (cursor == null || cursor.isBlank())
+				&& normalizarTamanoPagina(tamano) == TAMANO_PAGINA_DEFECTO;
+		if (primeraPaginaPorDefecto) {
+			return detalle.getPrimeraPaginaResenas();
+		}
+		return obtenerPaginaResenas(detalle.getProducto().getIdProducto(), filtro, cursor, tamano);
+	}
+	
+	// Obtener una página de reseñas de un producto filtrada y ordenada en la base de datos
+	// Se pide una fila más que el tamaño de página para saber si hay página siguiente sin contar el total
+	public PaginaResenas obtenerPaginaResenas(Long idProducto, FiltroResenas filtro, String cursor, Integer tamano) {
+		if (filtro == null) {
+			filtro = FiltroResenas.porDefecto();
+		}
+		if (filtro.getCalificacion() != null && (filtro.getCalificacion() < 1 || filtro.getCalificacion() > 5)) {
 			throw new IllegalArgumentException("La calificación debe estar entre 1 y 5");
 		}
+		if (filtro.getDesde() != null && filtro.getHasta() != null && filtro.getDesde().isAfter(filtro.getHasta())) {
+			throw new IllegalArgumentException("La fecha inicial no puede ser posterior a la fecha final");
+		}
+		
+		int tamanoPagina = normalizarTamanoPagina(tamano);
+		PaginaResenas.Cursor posicion = PaginaResenas.Cursor.decodificar(cursor);
+		
+		// El rango de fechas es por días completos: [desde 00:00, hasta + 1 día 00:00)
+		ZoneId zona = ZoneId.systemDefault();
+		Date desde = filtro.getDesde() != null ? Date.from(filtro.getDesde().atStartOfDay(zona).toInstant()) : null;
+		Date hasta = filtro.getHasta() != null ? Date.from(filtro.getHasta().plusDays(1).atStartOfDay(zona).toInstant()) : null;
+		Date cursorFecha = posicion != null ? posicion.getFechaCreacion() : null;
+		Long cursorId = posicion != null ? posicion.getIdResena() : null;
+		Limit limite = Limit.of(tamanoPagina + 1);
 		
-		return obtenerResenasPorProducto(idProducto).stream()
-				.filter(r -> r.getCalificacion().equals(calificacion))
-				.toList();
+		List<ResenaResumen> filas = switch (filtro.getOrden()) {
+			case RECIENTES -> resenaRepo.buscarPaginaRecientes(idProducto, filtro.getCalificacion(),
+					filtro.isSoloConComentario(), desde, hasta, cursorFecha, cursorId, limite);
+			case RELEVANTES -> resenaRepo.buscarPaginaRelevantes(idProducto, filtro.getCalificacion(),
+					filtro.isSoloConComentario(), desde, hasta,
+					posicion != null ? posicion.isConComentario() : null, cursorFecha, cursorId, limite);
+		};
+		
+		return PaginaResenas.desdeResultados(filas, filtro, tamanoPagina);
 	}
 	
-	// Obtener reseñas con comentario
-	public List<resena> obtenerResenasPorProductoConComentario(Long idProducto) {
-		return obtenerResenasPorProducto(idProducto).stream()
-				.filter(r -> r.getComentarioResena() != null && !r.getComentarioResena().isEmpty())
-				.toList();
+	// Verificar si la violación de integridad corresponde a la restricción única (usuario, producto) (privado)
+	private boolean esResenaDuplicada(DataIntegrityViolationException e) {
+		for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+			if (causa instanceof ConstraintViolationException violacion) {
+				String restriccion = violacion.getConstraintName();
+				return restriccion != null && restriccion.toLowerCase().contains(resena.UK_USUARIO_PRODUCTO);
+			}
+		}
+		return false;
 	}
 	
-	// Actualizar calificación promedio del producto (privado)
-	private void actualizarCalificacionProducto(Long idProducto) {
-		Optional<producto> productoOpt = productoRepo.findById(idProducto);
+	// Acotar el tamaño de página de reseñas solicitado (privado)
+	private int normalizarTamanoPagina(Integer tamano) {
+		if (tamano == null || tamano <= 0) {
+			return TAMANO_PAGINA_DEFECTO;
+		}
+		return Math.min(tamano, TAMANO_PAGINA_MAXIMO);
+	}
+	
+	// Obtener producto o fallar si no existe (privado)
+	private producto obtenerProductoExistente(Long idProducto) {
+		return productoRepo.findById(idProducto)
+			.orElseThrow(() -> new IllegalArgumentException("El producto con ID " + idProducto + " no existe"));
+	}
+	
+	// Verificar si una calificación tiene barra en el histograma de estrellas (privado)
+	private static boolean esCalificacionValida(int calificacion) {
+		return calificacion >= 1 && calificacion <= 5;
+	}
+	
+	// Actualizar agregados de calificación del producto con un UPDATE atómico (privado)
+	// calificacionAnterior es null al crear y calificacionNueva es null al eliminar
+	private void actualizarCalificacionProducto(Long idProducto, Integer calificacionAnterior, Integer calificacionNueva) {
+		int[] deltaEstrellas = new int[6];
+		int deltaCantidad = 0;
+		long deltaSuma = 0;
 		
-		if (productoOpt.isPresent()) {
-			Double promedioCalificacion = obtenerCalificacionPromedio(idProducto);
-			producto producto = productoOpt.get();
-			producto.setCalificacionProducto(promedioCalificacion);
-			productoRepo.save(producto);
+		// Reseñas antiguas pueden tener calificaciones fuera de 1..5 (la columna no lo restringe; las nuevas se
+		// validan): cuentan en la cantidad y la suma pero no tienen barra en el histograma
+		if (calificacionAnterior != null) {
+			if (esCalificacionValida(calificacionAnterior)) {
+				deltaEstrellas[calificacionAnterior]--;
+			} else {
+				log.warn("Producto {}: calificación fuera de rango ({}) sin ajuste de histograma", idProducto, calificacionAnterior);
+			}
+			deltaCantidad--;
+			deltaSuma -= calificacionAnterior;
 		}
+		if (calificacionNueva != null) {
+			if (esCalificacionValida(calificacionNueva)) {
+				deltaEstrellas[calificacionNueva]++;
+			}
+			deltaCantidad++;
+			deltaSuma += calificacionNueva;
+		}
+		
+		productoRepo.aplicarDeltaCalificacion(idProducto, deltaCantidad, deltaSuma,
+				deltaEstrellas[1], deltaEstrellas[2], deltaEstrellas[3], deltaEstrellas[4], deltaEstrellas[5]);
+		
+		// El UPDATE no pasa por el contexto de persistencia: si el producto ya estaba cargado (ej: open-in-view)
+		// se refresca para no leer los agregados anteriores; un proxy sin inicializar se cargará ya actualizado
+		producto enContexto = entityManager.getReference(producto.class, idProducto);
+		if (Hibernate.isInitialized(enContexto)) {
+			entityManager.refresh(enContexto);
+		}
+		
+		// Toda escritura de reseñas pasa por aquí: descartar el detalle cacheado del producto
+		detalleProductoService.invalidar(idProducto);
 	}
 	
 }
@@ -2,6 +2,8 @@ package edu.com.co.Proyecto.Final.Service;
 
 import java.util.Optional;
 
+import io.micrometer.core.annotation.Timed;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -9,6 +11,7 @@ import edu.com.co.Proyecto.Final.Model.roles;
 import edu.com.co.Proyecto.Final.Repository.rolRepository;
 
 @Service
+@Timed("servicio")
 public class rolService {
 	
 	@Autowired
@@ -0,0 +1,99 @@
+package edu.com.co.Proyecto.Final.Service;
+
+import java.util.List;
+
+import io.micrometer.core.annotation.Timed;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Secuencias de ids en la tabla secuencias_id (una fila por entidad)
+ * Hibernate toma bloques de allocationSize ids con el optimizador pooled-lo: la fila guarda el primer id libre
+ * y cada bloque es [valor, valor + allocationSize). Así los INSERT no necesitan el id generado por la base
+ * de datos y se pueden enviar en lotes JDBC.
+ *
+ * Migración: al arrancar, cada secuencia se adelanta por encima del id máximo existente, de modo que las
+ * tablas creadas con AUTO_INCREMENT siguen funcionando sin renumerar filas.
+ */
+@Service
+@Timed("servicio")
+@DependsOn("entityManagerFactory")
+public class secuenciaIdService {
+
+	private static final Logger log = LoggerFactory.getLogger(secuenciaIdService.class);
+
+	// Secuencia (pkColumnValue de @TableGenerator), tabla y columna del id
+	private static final String[][] SECUENCIAS = {
+		{"roles", "roles", "id_rol"},
+		{"usuarios", "usuarios", "id_usuario"},
+		{"productos", "productos", "id_producto"},
+		{"resenas", "resenas", "id_resena"}
+	};
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	/**
+	 * Adelantar cada secuencia por encima del id máximo de su tabla (antes de cualquier INSERT)
+	 */
+	@PostConstruct
+	void sincronizarConTablas() {
+		new TransactionTemplate(transactionManager).executeWithoutResult(estado -> {
+			for (String[] secuencia : SECUENCIAS) {
+				Long maximo = jdbcTemplate.queryForObject(
+						"SELECT COALESCE(MAX(" + secuencia[2] + "), 0) FROM " + secuencia[1], Long.class);
+				long siguiente = maximo + 1;
+
+				List<Long> actual = jdbcTemplate.queryForList(
+						"SELECT siguiente_valor FROM secuencias_id WHERE nombre_secuencia = ? FOR UPDATE",
+						Long.class, secuencia[0]);
+				if (actual.isEmpty()) {
+					jdbcTemplate.update("INSERT INTO secuencias_id (nombre_secuencia, siguiente_valor) VALUES (?, ?)",
+							secuencia[0], siguiente);
+					log.info("Secuencia {} creada en {}", secuencia[0], siguiente);
+				} else if (actual.get(0) < siguiente) {
+					jdbcTemplate.update("UPDATE secuencias_id SET siguiente_valor = ? WHERE nombre_secuencia = ?",
+							siguiente, secuencia[0]);
+					// Tabla vacía: solo se corrige el valor inicial 0 que inserta Hibernate al crear la tabla
+					if (maximo > 0) {
+						log.info("Secuencia {} adelantada de {} a {}", secuencia[0], actual.get(0), siguiente);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Reservar un rango de ids para inserciones por JDBC directo (ej: siembra masiva)
+	 * Devuelve el primer id del rango [primero, primero + cantidad), compatible con los bloques de Hibernate
+	 */
+	@Transactional
+	public long reservar(String secuencia, int cantidad) {
+		if (cantidad <= 0) {
+			throw new IllegalArgumentException("La cantidad de ids debe ser positiva");
+		}
+		List<Long> actual = jdbcTemplate.queryForList(
+				"SELECT siguiente_valor FROM secuencias_id WHERE nombre_secuencia = ? FOR UPDATE",
+				Long.class, secuencia);
+		if (actual.isEmpty()) {
+			throw new IllegalArgumentException("La secuencia no existe: " + secuencia);
+		}
+		long primero = actual.get(0);
+		jdbcTemplate.update("UPDATE secuencias_id SET siguiente_valor = ? WHERE nombre_secuencia = ?",
+				primero + cantidad, secuencia);
+		return primero;
+	}
+}
@@ -1,17 +1,24 @@
 package edu.com.co.Proyecto.Final.Service;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
+import io.micrometer.core.annotation.Timed;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import edu.com.co.Proyecto.Final.Model.usuario;
 import edu.com.co.Proyecto.Final.Model.roles;
 import edu.com.co.Proyecto.Final.Repository.usuarioRepository;
+import edu.com.co.Proyecto.Final.Security.revocacionTokenService;
+import edu.com.co.Proyecto.Final.Security.usuarioDetailsService;
 
 @Service
+@Timed("servicio")
 public class usuarioService {
 	
 	@Autowired
@@ -23,6 +30,15 @@ public class usuarioService {
 	@Autowired
 	private rolService rolService;
 	
+	@Autowired
+	private resenaService resenaService;
+	
+	@Autowired
+	private revocacionTokenService revocacionTokenService;
+	
+	@Autowired
+	private usuarioDetailsService usuarioDetailsService;
+	
 	// ...existing code...
 	public List<usuario> obtenerTodosUsuarios() {
 		return usuarioRepo.findAll();
@@ -43,6 +59,11 @@ public class usuarioService {
 		return usuarioRepo.findByEmailUsuario(email);
 	}
 	
+	// Obtener usuario por nombre de usuario o email, con su rol, en una sola consulta
+	public Optional<usuario> obtenerUsuarioPorNombreOEmail(String identificador) {
+		return usuarioRepo.findByNombreUsuarioOEmail(identificador);
+	}
+	
 	// Buscar usuario por nombre (retorna objeto directamente)
 	public usuario buscarPorNombreUsuario(String nombreUsuario) {
 		return usuarioRepo.findByNombreUsuario(nombreUsuario)
@@ -139,6 +160,7 @@ public class usuarioService {
 		}
 		
 		usuario usuario = usuarioExistente.get();
+		String emailAnterior = usuario.getEmailUsuario();
 		
 		if (usuarioActualizado.getEmailUsuario() != null && !usuarioActualizado.getEmailUsuario().isEmpty()) {
 			if (!validarFormatoEmail(usuarioActualizado.getEmailUsuario())) {
@@ -152,11 +174,20 @@ public class usuarioService {
 		if (usuarioActualizado.getDescripcionUsuario() != null) {
 			usuario.setDescripcionUsuario(usuarioActualizado.getDescripcionUsuario());
 		}
+		boolean cambioRol = usuarioActualizado.getRol() != null
+			&& (usuario.getRol() == null || !Objects.equals(usuarioActualizado.getRol().getIdRol(), usuario.getRol().getIdRol()));
 		if (usuarioActualizado.getRol() != null) {
 			usuario.setRol(usuarioActualizado.getRol());
 		}
 		
-		return usuarioRepo.save(usuario);
+		usuario usuarioGuardado = usuarioRepo.save(usuario);
+		usuarioDetailsService.invalidar(usuarioGuardado.getNombreUsuario(), emailAnterior, usuarioGuardado.getEmailUsuario());
+		
+		// Los roles viajan en el token: revocar los tokens emitidos con el rol anterior
+		if (cambioRol) {
+			revocacionTokenService.revocarTokens(usuarioGuardado.getNombreUsuario());
+		}
+		return usuarioGuardado;
 	}
 	
 	/**
@@ -201,11 +232,14 @@ public class usuarioService {
 		}
 		
 		// Actualizar datos
+		String emailAnterior = usuario.getEmailUsuario();
 		usuario.setEmailUsuario(email.trim());
 		usuario.setNumeroTelefonoUsuario(telefono);
 		usuario.setDescripcionUsuario(descripcion != null ? descripcion.trim() : "");
 		
-		return usuarioRepo.save(usuario);
+		usuario usuarioGuardado = usuarioRepo.save(usuario);
+		usuarioDetailsService.invalidar(usuarioGuardado.getNombreUsuario(), emailAnterior, usuarioGuardado.getEmailUsuario());
+		return usuarioGuardado;
 	}
 	
 	// Cambiar contraseña
@@ -223,6 +257,10 @@ public class usuarioService {
 		usuario usuario = usuarioOpt.get();
 		usuario.setContrasenaUsuario(passwordEncoder.encode(contrasenaNueva));
 		usuarioRepo.save(usuario);
+		usuarioDetailsService.invalidar(usuario.getNombreUsuario(), usuario.getEmailUsuario());
+		
+		// Cerrar las sesiones JWT abiertas con la contraseña anterior
+		revocacionTokenService.revocarTokens(usuario.getNombreUsuario());
 	}
 	
 	// Validar contraseña
@@ -238,11 +276,22 @@ public class usuarioService {
 	}
 	
 	// Eliminar usuario
+	@Transactional
 	public void eliminarUsuario(Long idUsuario) {
-		if (!usuarioRepo.existsById(idUsuario)) {
+		Optional<usuario> usuarioOpt = usuarioRepo.findById(idUsuario);
+		if (usuarioOpt.isEmpty()) {
 			throw new IllegalArgumentException("El usuario con ID " + idUsuario + " no existe");
 		}
+		String nombreUsuario = usuarioOpt.get().getNombreUsuario();
+		String emailUsuario = usuarioOpt.get().getEmailUsuario();
+		
+		// Las reseñas se eliminan en cascada: descontar antes sus calificaciones de los productos
+		resenaService.revertirCalificacionesDeUsuario(idUsuario);
 		usuarioRepo.deleteById(idUsuario);
+		
+		// Sin usuario no hay versión vigente: sus tokens dejan de ser válidos
+		revocacionTokenService.invalidar(nombreUsuario);
+		usuarioDetailsService.invalidar(nombreUsuario, emailUsuario);
 	}
 	
 	// Obtener usuarios por rol
@@ -0,0 +1,417 @@
+package edu.com.co.Proyecto.Final.Service;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import edu.com.co.Proyecto.Final.Config.FiltroMuestreoLog;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Variantes redimensionadas de las imágenes (miniatura, tarjeta, detalle)
+ *
+ * - Se generan al subir la imagen o la primera vez que se piden
+ * - Se guardan en un cache en disco direccionado por contenido: el nombre del archivo es el
+ *   SHA-256 de la imagen original más la variante, así que nunca queda una variante desactualizada
+ * - Un pool de hilos acotado limita el CPU dedicado a redimensionar; si está saturado
+ *   se sirve la imagen original en lugar de encolar trabajo sin límite
+ */
+@Service
+@Timed("servicio")
+public class variantesImagenService {
+
+	/**
+	 * Tamaños soportados: la imagen se ajusta dentro de un cuadrado de este lado, sin ampliarla
+	 */
+	public enum Variante {
+		MINIATURA(240),
+		TARJETA(640),
+		DETALLE(1280);
+
+		private final int ladoMaximo;
+
+		Variante(int ladoMaximo) {
+			this.ladoMaximo = ladoMaximo;
+		}
+
+		public int getLadoMaximo() {
+			return ladoMaximo;
+		}
+
+		/**
+		 * Interpretar el parámetro de la URL, o null si no se pidió una variante válida
+		 */
+		public static Variante desde(String valor) {
+			if (valor != null) {
+				for (Variante variante : values()) {
+					if (variante.name().equalsIgnoreCase(valor.trim())) {
+						return variante;
+					}
+				}
+			}
+			return null;
+		}
+	}
+
+	// Calidad JPEG de las variantes (0-1)
+	private static final float CALIDAD_JPEG = 0.82f;
+
+	private static final Logger log = LoggerFactory.getLogger(variantesImagenService.class);
+
+	@Autowired
+	private imagenService imagenService;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	// Directorio del cache de variantes
+	@Value("${imagenes.variantes.directorio:${java.io.tmpdir}/proyecto-final/variantes}")
+	private String directorio;
+
+	// Hilos dedicados a redimensionar (por defecto la mitad de los núcleos)
+	@Value("${imagenes.variantes.hilos:0}")
+	private int hilos;
+
+	// Trabajos de redimensionado que pueden esperar en cola
+	@Value("${imagenes.variantes.cola:64}")
+	private int capacidadCola;
+
+	// Máximo de píxeles (ancho x alto) de una original que se decodifica: un archivo pequeño y muy comprimido
+	// puede declarar dimensiones enormes y agotar el heap al decodificarse (25 MP = 100 MB en ARGB)
+	@Value("${imagenes.variantes.pixeles-maximos:25000000}")
+	private long pixelesMaximos;
+
+	// Máximo de variantes ubicadas que se mantienen en memoria
+	@Value("${imagenes.cache.tamano-maximo:2000}")
+	private long tamanoMaximoCache;
+
+	// Tiempo máximo que una petición espera a que se genere su variante
+	@Value("${imagenes.variantes.espera-ms:5000}")
+	private long esperaMs;
+
+	private Path raiz;
+	private ThreadPoolExecutor pool;
+
+	// Variantes ya ubicadas en disco: al ser direccionadas por contenido nunca cambian
+	private Cache<Path, imagenService.ImagenResuelta> resueltas;
+
+	// Variantes que se están generando, para no redimensionar dos veces la misma
+	private final ConcurrentHashMap<Path, CompletableFuture<Path>> enCurso = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	void inicializar() throws IOException {
+		raiz = Paths.get(directorio);
+		Files.createDirectories(raiz);
+		resueltas = Caffeine.newBuilder()
+				.maximumSize(tamanoMaximoCache)
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, resueltas, "imagenes.variantes");
+
+		int cantidadHilos = hilos > 0 ? hilos : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+		AtomicInteger contador = new AtomicInteger();
+		pool = new ThreadPoolExecutor(cantidadHilos, cantidadHilos, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(capacidadCola),
+				tarea -> {
+					Thread hilo = new Thread(tarea, "variantes-imagen-" + contador.incrementAndGet());
+					hilo.setDaemon(true);
+					return hilo;
+				},
+				new ThreadPoolExecutor.AbortPolicy());
+		pool.allowCoreThreadTimeOut(true);
+		// Hilos activos, cola y tareas completadas del pool de redimensionado
+		new ExecutorServiceMetrics(pool, "imagenes.variantes", Tags.empty()).bindTo(meterRegistry);
+	}
+
+	@PreDestroy
+	void detener() {
+		pool.shutdownNow();
+	}
+
+	/**
+	 * Verificar si el formato admite variantes (SVG es vectorial y los GIF pueden ser animados)
+	 */
+	public boolean soportaVariantes(String nombreArchivo) {
+		String nombre = nombreArchivo.toLowerCase();
+		return nombre.endsWith(".jpg") || nombre.endsWith(".jpeg")
+				|| nombre.endsWith(".png") || nombre.endsWith(".webp");
+	}
+
+	/**
+	 * Obtener la variante de una imagen ya resuelta, generándola si aún no existe
+	 *
+	 * @return la variante lista para servir (o la original si la variante no es más liviana),
+	 *         o vacío si no se pudo generar a tiempo
+	 */
+	public Optional<imagenService.ImagenResuelta> obtenerVariante(imagenService.ImagenResuelta original, Variante variante) {
+		Path base = rutaVariante(original.getHashContenido(), variante);
+		imagenService.ImagenResuelta resuelta = resueltas.getIfPresent(base);
+		if (resuelta != null) {
+			return Optional.of(resuelta);
+		}
+
+		try {
+			Path ruta = buscarExistente(base);
+			if (ruta == null) {
+				ruta = generar(original, variante, base).get(esperaMs, TimeUnit.MILLISECONDS);
+			}
+			long longitud = Files.size(ruta);
+			
+			// Si la variante no pesa menos que la original (imagen ya pequeña) se sirve la original
+			resuelta = longitud >= original.getLongitud() ? original : new imagenService.ImagenResuelta(
+					new FileSystemResource(ruta),
+					longitud,
+					Files.getLastModifiedTime(ruta).toMillis(),
+					original.getHashContenido() + "-" + variante.name().toLowerCase());
+			resueltas.put(base, resuelta);
+			return Optional.of(resuelta);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (RejectedExecutionException | TimeoutException | ExecutionException | IOException e) {
+			log.warn(FiltroMuestreoLog.MUESTREO, "Variante {} no disponible, se sirve la original: {}", variante, e.toString());
+		}
+		return Optional.empty();
+	}
+
+	/**
+	 * Descartar las variantes ubicadas en memoria de una imagen (ej: se borró su archivo del cache en disco)
+	 * Solo las de ese contenido: un archivo con problemas no debe vaciar el cache de las demás imágenes
+	 */
+	public void invalidar(String hashContenido) {
+		for (Variante variante : Variante.values()) {
+			resueltas.invalidate(rutaVariante(hashContenido, variante));
+		}
+	}
+
+	/**
+	 * Encolar la generación de todas las variantes de una imagen recién subida
+	 */
+	public void generarVariantes(String nombreArchivo) {
+		if (!soportaVariantes(nombreArchivo)) {
+			return;
+		}
+
+		try {
+			var originalOpt = imagenService.resolver(nombreArchivo);
+			if (originalOpt.isEmpty()) {
+				return;
+			}
+			for (Variante variante : Variante.values()) {
+				Path base = rutaVariante(originalOpt.get().getHashContenido(), variante);
+				if (buscarExistente(base) == null) {
+					generar(originalOpt.get(), variante, base);
+				}
+			}
+		} catch (RejectedExecutionException e) {
+			// Pool saturado: las variantes faltantes se generarán cuando se pidan
+			log.warn(FiltroMuestreoLog.MUESTREO, "Pool de variantes saturado, se generarán bajo demanda: {}", nombreArchivo);
+		} catch (IOException e) {
+			log.error("Error preparando variantes de {}", nombreArchivo, e);
+		}
+	}
+
+	// ==================== MÉTODOS PRIVADOS ====================
+
+	/**
+	 * Ruta base (sin extensión) de la variante en el cache, agrupada en subdirectorios por prefijo del hash
+	 */
+	private Path rutaVariante(String hashContenido, Variante variante) {
+		return raiz.resolve(hashContenido.substring(0, 2))
+				.resolve(hashContenido + "_" + variante.name().toLowerCase());
+	}
+
+	/**
+	 * Buscar la variante ya generada (JPEG o PNG), o null si aún no existe
+	 */
+	private Path buscarExistente(Path base) {
+		for (String extension : new String[] {".jpg", ".png"}) {
+			Path ruta = base.resolveSibling(base.getFileName() + extension);
+			if (Files.exists(ruta)) {
+				return ruta;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Encolar la generación de una variante, reutilizando la tarea si ya está en curso
+	 *
+	 * @throws RejectedExecutionException si el pool y su cola están llenos
+	 */
+	private CompletableFuture<Path> generar(imagenService.ImagenResuelta original, Variante variante, Path base) {
+		CompletableFuture<Path> nueva = new CompletableFuture<>();
+		CompletableFuture<Path> existente = enCurso.putIfAbsent(base, nueva);
+		if (existente != null) {
+			return existente;
+		}
+
+		try {
+			pool.execute(() -> {
+				try {
+					nueva.complete(redimensionar(original, variante, base));
+				} catch (Throwable e) {
+					nueva.completeExceptionally(e);
+				} finally {
+					enCurso.remove(base, nueva);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			enCurso.remove(base, nueva);
+			nueva.completeExceptionally(e);
+			throw e;
+		}
+		return nueva;
+	}
+
+	/**
+	 * Decodificar la original, reducirla y escribir la variante (JPEG, o PNG si tiene transparencia)
+	 * Se escribe a un temporal y se mueve de forma atómica para no servir archivos a medio escribir
+	 *
+	 * @return ruta final de la variante (base + extensión del formato elegido)
+	 */
+	private Path redimensionar(imagenService.ImagenResuelta original, Variante variante, Path base) throws IOException {
+		BufferedImage imagen;
+		try (InputStream in = original.getRecurso().getInputStream()) {
+			imagen = decodificar(in);
+		}
+
+		boolean transparente = imagen.getColorModel().hasAlpha();
+		BufferedImage reducida = reducir(imagen, variante.getLadoMaximo(), transparente);
+		Path ruta = base.resolveSibling(base.getFileName() + (transparente ? ".png" : ".jpg"));
+
+		Files.createDirectories(ruta.getParent());
+		Path temporal = Files.createTempFile(ruta.getParent(), ".variante_", ".tmp");
+		try {
+			try (OutputStream out = Files.newOutputStream(temporal)) {
+				if (transparente) {
+					ImageIO.write(reducida, "png", out);
+				} else {
+					escribirJpeg(reducida, out);
+				}
+			}
+			try {
+				Files.move(temporal, ruta, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporal, ruta, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temporal);
+		}
+		return ruta;
+	}
+
+	/**
+	 * Decodificar la imagen leyendo primero sus dimensiones del encabezado, sin reservar los píxeles
+	 *
+	 * @throws IOException si el formato no es soportado o la imagen excede pixelesMaximos
+	 */
+	private BufferedImage decodificar(InputStream in) throws IOException {
+		try (ImageInputStream entrada = ImageIO.createImageInputStream(in)) {
+			Iterator<ImageReader> lectores = entrada != null ? ImageIO.getImageReaders(entrada) : null;
+			if (lectores == null || !lectores.hasNext()) {
+				throw new IOException("Formato de imagen no soportado por el decodificador");
+			}
+			ImageReader lector = lectores.next();
+			try {
+				lector.setInput(entrada, true, true);
+				int ancho = lector.getWidth(0);
+				int alto = lector.getHeight(0);
+				if ((long) ancho * alto > pixelesMaximos) {
+					throw new IOException("Imagen de " + ancho + "x" + alto + " píxeles, excede el máximo de " + pixelesMaximos);
+				}
+				return lector.read(0);
+			} finally {
+				lector.dispose();
+			}
+		}
+	}
+
+	/**
+	 * Reducir la imagen para que quepa en el lado máximo, a la mitad por pasos para conservar calidad
+	 */
+	private BufferedImage reducir(BufferedImage imagen, int ladoMaximo, boolean transparente) {
+		int ancho = imagen.getWidth();
+		int alto = imagen.getHeight();
+		double escala = Math.min(1.0, (double) ladoMaximo / Math.max(ancho, alto));
+		int anchoFinal = Math.max(1, (int) Math.round(ancho * escala));
+		int altoFinal = Math.max(1, (int) Math.round(alto * escala));
+		int tipo = transparente ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+		BufferedImage actual = imagen;
+		do {
+			ancho = Math.max(anchoFinal, ancho / 2);
+			alto = Math.max(altoFinal, alto / 2);
+
+			BufferedImage paso = new BufferedImage(ancho, alto, tipo);
+			Graphics2D g = paso.createGraphics();
+			try {
+				g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+				g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+				g.drawImage(actual, 0, 0, ancho, alto, null);
+			} finally {
+				g.dispose();
+			}
+			actual = paso;
+		} while (ancho != anchoFinal || alto != altoFinal);
+
+		return actual;
+	}
+
+	private void escribirJpeg(BufferedImage imagen, OutputStream out) throws IOException {
+		ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+		try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+			writer.setOutput(ios);
+			ImageWriteParam parametros = writer.getDefaultWriteParam();
+			parametros.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+			parametros.setCompressionQuality(CALIDAD_JPEG);
+			writer.write(null, new IIOImage(imagen, null, null), parametros);
+		} finally {
+			writer.dispose();
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package edu.com.co.Proyecto.Final.Benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import edu.com.co.Proyecto.Final.ProyectoFinalApplication;
+import edu.com.co.Proyecto.Final.Model.producto;
+import edu.com.co.Proyecto.Final.Service.productoService;
+
+/**
+ * Contexto de Spring compartido por los benchmarks de un mismo fork
+ * Arranca la aplicación completa sobre la base de datos embebida de las pruebas (H2)
+ * y agrega productos sintéticos para que las búsquedas recorran un catálogo realista
+ */
+@State(Scope.Benchmark)
+public class ContextoAplicacion {
+
+	// Ingredientes con los que se arman nombres, descripciones e ingredientes de los productos sintéticos
+	private static final String[] PALABRAS = {
+		"chocolate", "fresa", "vainilla", "queso", "limón", "maracuyá", "arequipe", "coco",
+		"almendra", "café", "caramelo", "mora", "mango", "avena", "canela", "nuez"
+	};
+
+	// Productos sintéticos además de los que crea dataInitializer
+	@Param({"500"})
+	public int productosSinteticos;
+
+	private ConfigurableApplicationContext contexto;
+
+	@Setup(Level.Trial)
+	public void arrancar() {
+		contexto = new SpringApplicationBuilder(ProyectoFinalApplication.class)
+				.properties(
+					"server.port=0",
+					"spring.main.banner-mode=off",
+					"logging.level.root=WARN")
+				.run();
+
+		productoService productos = bean(productoService.class);
+		for (int i = 0; i < productosSinteticos; i++) {
+			String a = PALABRAS[i % PALABRAS.length];
+			String b = PALABRAS[(i / PALABRAS.length) % PALABRAS.length];
+			producto p = new producto();
+			p.setNombreProducto("Torta de " + a + " y " + b + " " + i);
+			p.setPrecioProducto(20000.0 + i);
+			p.setDescripcionProducto("Torta artesanal de " + a + " con cobertura de " + b);
+			p.setIngredientesProducto("Harina, huevos, azúcar, " + a + ", " + b);
+			p.setRutaImagenProducto("producto-" + i + ".jpg");
+			productos.crearProducto(p);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void detener() {
+		contexto.close();
+	}
+
+	public <T> T bean(Class<T> tipo) {
+		return contexto.getBean(tipo);
+	}
+}
@@ -0,0 +1,191 @@
+package edu.com.co.Proyecto.Final.Benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.h2.tools.Server;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Pool y driver con la configuración por defecto frente al perfil prod (application-prod.properties)
+ *
+ * - defecto: Hikari sin ajustes, URL con autoReconnect y un INSERT por fila (Hibernate sin jdbc.batch_size)
+ * - produccion: pool, propiedades del driver y lotes JDBC leídos del perfil prod
+ *
+ * Por defecto usa un servidor H2 local por TCP (se notan el pool y los lotes); contra MySQL se notan además
+ * el cache de sentencias preparadas y rewriteBatchedStatements:
+ *   mvn -Pbenchmark test -Dbenchmark.filtro=PoolConexionesBenchmark \
+ *       -Dbenchmark.jdbc.url=jdbc:mysql://localhost:3306/bench -Dbenchmark.jdbc.usuario=root -Dbenchmark.jdbc.contrasena=...
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PoolConexionesBenchmark {
+
+	private static final String PREFIJO_HIKARI = "spring.datasource.hikari.";
+	private static final String PREFIJO_DRIVER = PREFIJO_HIKARI + "data-source-properties.";
+	private static final String PROPIEDAD_LOTE = "spring.jpa.properties.hibernate.jdbc.batch_size";
+
+	private static final int FILAS_SEMILLA = 10_000;
+
+	@Param({"defecto", "produccion"})
+	public String configuracion;
+
+	// Filas por transacción en el benchmark de inserción (ej: una importación o un guardado en cascada)
+	@Param({"100"})
+	public int filasPorTransaccion;
+
+	private HikariDataSource dataSource;
+	private Server servidorH2;
+	private int tamanoLote;
+
+	@Setup(Level.Trial)
+	public void arrancar() throws IOException, SQLException {
+		String url = System.getProperty("benchmark.jdbc.url", "");
+		boolean mysql = url.startsWith("jdbc:mysql:");
+		if (url.isBlank()) {
+			// H2 por TCP y no embebido: cada sentencia paga un viaje de red, como con MySQL
+			servidorH2 = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+			url = "jdbc:h2:tcp://localhost:" + servidorH2.getPort() + "/mem:pool_" + configuracion
+					+ ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+		}
+
+		HikariConfig config = new HikariConfig();
+		config.setUsername(System.getProperty("benchmark.jdbc.usuario", "sa"));
+		config.setPassword(System.getProperty("benchmark.jdbc.contrasena", ""));
+
+		if ("produccion".equals(configuracion)) {
+			Properties prod = new Properties();
+			try (InputStream in = getClass().getResourceAsStream("/application-prod.properties")) {
+				prod.load(in);
+			}
+			config.setJdbcUrl(url);
+			config.setMaximumPoolSize(Integer.parseInt(valor(prod, PREFIJO_HIKARI + "maximum-pool-size")));
+			config.setMinimumIdle(Integer.parseInt(valor(prod, PREFIJO_HIKARI + "minimum-idle")));
+			config.setConnectionTimeout(Long.parseLong(valor(prod, PREFIJO_HIKARI + "connection-timeout")));
+			if (mysql) {
+				for (String nombre : prod.stringPropertyNames()) {
+					if (nombre.startsWith(PREFIJO_DRIVER)) {
+						config.addDataSourceProperty(nombre.substring(PREFIJO_DRIVER.length()), prod.getProperty(nombre));
+					}
+				}
+			}
+			tamanoLote = Integer.parseInt(valor(prod, PROPIEDAD_LOTE));
+		} else {
+			// Como application.properties hoy: sin ajustes del pool ni del driver
+			config.setJdbcUrl(mysql ? url + (url.contains("?") ? "&" : "?") + "autoReconnect=true" : url);
+			tamanoLote = 0;
+		}
+		dataSource = new HikariDataSource(config);
+
+		try (Connection conexion = dataSource.getConnection(); Statement st = conexion.createStatement()) {
+			st.execute("DROP TABLE IF EXISTS bench_resenas");
+			st.execute("CREATE TABLE bench_resenas (id BIGINT AUTO_INCREMENT PRIMARY KEY, id_producto BIGINT NOT NULL, "
+					+ "calificacion INT NOT NULL, comentario VARCHAR(255))");
+		}
+		insertar(FILAS_SEMILLA);
+	}
+
+	@TearDown(Level.Trial)
+	public void detener() {
+		dataSource.close();
+		if (servidorH2 != null) {
+			servidorH2.stop();
+		}
+	}
+
+	/**
+	 * Inserción de varias filas en una transacción: fila por fila o en lotes según la configuración
+	 */
+	@Benchmark
+	public int insertarTransaccion() throws SQLException {
+		return insertar(filasPorTransaccion);
+	}
+
+	/**
+	 * Búsqueda por clave primaria desde varios hilos: pool, sentencia preparada y ida y vuelta
+	 */
+	@Benchmark
+	@Threads(4)
+	public int consultarPorId() throws SQLException {
+		try (Connection conexion = dataSource.getConnection();
+			 PreparedStatement ps = conexion.prepareStatement(
+					 "SELECT id_producto, calificacion, comentario FROM bench_resenas WHERE id = ?")) {
+			ps.setLong(1, 1 + ThreadLocalRandom.current().nextInt(FILAS_SEMILLA));
+			try (ResultSet rs = ps.executeQuery()) {
+				return rs.next() ? rs.getInt(2) : 0;
+			}
+		}
+	}
+
+	// ==================== MÉTODOS PRIVADOS ====================
+
+	private int insertar(int filas) throws SQLException {
+		ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+		try (Connection conexion = dataSource.getConnection();
+			 PreparedStatement ps = conexion.prepareStatement(
+					 "INSERT INTO bench_resenas (id_producto, calificacion, comentario) VALUES (?, ?, ?)")) {
+			conexion.setAutoCommit(false);
+			int pendientes = 0;
+			for (int i = 0; i < filas; i++) {
+				ps.setLong(1, 1 + aleatorio.nextInt(1000));
+				ps.setInt(2, 1 + aleatorio.nextInt(5));
+				ps.setString(3, "Reseña de benchmark " + i);
+				if (tamanoLote > 0) {
+					ps.addBatch();
+					if (++pendientes == tamanoLote) {
+						ps.executeBatch();
+						pendientes = 0;
+					}
+				} else {
+					ps.executeUpdate();
+				}
+			}
+			if (pendientes > 0) {
+				ps.executeBatch();
+			}
+			conexion.commit();
+			return filas;
+		}
+	}
+
+	private static String valor(Properties propiedades, String nombre) {
+		String valor = propiedades.getProperty(nombre);
+		if (valor == null) {
+			throw new IllegalStateException("Falta " + nombre + " en application-prod.properties");
+		}
+		// Resolver los marcadores ${VARIABLE:defecto} con su valor por defecto
+		if (valor.startsWith("${") && valor.endsWith("}") && valor.contains(":")) {
+			return valor.substring(valor.indexOf(':') + 1, valor.length() - 1);
+		}
+		return valor;
+	}
+}
@@ -0,0 +1,64 @@
+package edu.com.co.Proyecto.Final.Benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import edu.com.co.Proyecto.Final.Security.JwtUtil;
+import edu.com.co.Proyecto.Final.Security.usuarioDetailsService;
+
+/**
+ * Benchmarks de la ruta de autenticación: emisión y validación de JWT y carga del usuario
+ * Ejecutar con: mvn -Pbenchmark test -Dbenchmark.filtro=SeguridadBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SeguridadBenchmark {
+
+	private JwtUtil jwtUtil;
+	private usuarioDetailsService usuarioDetailsService;
+	private UserDetails usuario;
+	private String token;
+
+	@Setup
+	public void preparar(ContextoAplicacion contexto) {
+		jwtUtil = contexto.bean(JwtUtil.class);
+		usuarioDetailsService = contexto.bean(usuarioDetailsService.class);
+		usuario = usuarioDetailsService.loadUserByUsername("user");
+		token = jwtUtil.generateToken(usuario);
+	}
+
+	@Benchmark
+	public String generarToken() {
+		return jwtUtil.generateToken(usuario);
+	}
+
+	@Benchmark
+	public Boolean validarToken() {
+		return jwtUtil.validateToken(token, usuario);
+	}
+
+	@Benchmark
+	public UserDetails cargarUsuarioPorNombre() {
+		return usuarioDetailsService.loadUserByUsername("user");
+	}
+
+	@Benchmark
+	public UserDetails cargarUsuarioPorEmail() {
+		return usuarioDetailsService.loadUserByUsername("user@example.com");
+	}
+}
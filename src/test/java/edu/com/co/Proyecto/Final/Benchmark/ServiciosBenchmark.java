@@ -0,0 +1,60 @@
+package edu.com.co.Proyecto.Final.Benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.com.co.Proyecto.Final.Model.producto;
+import edu.com.co.Proyecto.Final.Service.productoService;
+import edu.com.co.Proyecto.Final.Service.resenaService;
+
+/**
+ * Benchmarks de los servicios de catálogo: búsqueda de productos y calificación promedio
+ * Ejecutar con: mvn -Pbenchmark test -Dbenchmark.filtro=ServiciosBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ServiciosBenchmark {
+
+	// Un término frecuente, una frase de varias palabras y un término sin resultados
+	@Param({"chocolate", "torta de fresa", "inexistente"})
+	public String termino;
+
+	private productoService productoService;
+	private resenaService resenaService;
+	private Long idProducto;
+
+	@Setup
+	public void preparar(ContextoAplicacion contexto) {
+		productoService = contexto.bean(productoService.class);
+		resenaService = contexto.bean(resenaService.class);
+		idProducto = productoService.obtenerProductoPorNombre("Cheesecake de Fresa")
+				.map(producto::getIdProducto)
+				.orElseThrow();
+	}
+
+	@Benchmark
+	public List<producto> buscarProductos() {
+		return productoService.buscarProductos(termino);
+	}
+
+	@Benchmark
+	public Double obtenerCalificacionPromedio() {
+		return resenaService.obtenerCalificacionPromedio(idProducto);
+	}
+}
@@ -0,0 +1,175 @@
+package edu.com.co.Proyecto.Final.Carga;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.context.ConfigurableApplicationContext;
+
+import edu.com.co.Proyecto.Final.Carga.PruebaCarga.Operacion;
+
+/**
+ * Misma carga contra la aplicación atendida por el pool de hilos de plataforma de Tomcat y por hilos virtuales
+ *
+ * Levanta la aplicación dos veces en este proceso (primero plataforma, luego virtual); cada contexto cierra su
+ * base de datos embebida, así que cada modo siembra los mismos datos deterministas antes de medir.
+ * Además del reporte por operación de cada modo, compara throughput total y exitoso (los 503 del límite de
+ * concurrencia cuentan como error), p99 y memoria: máximo de heap usado, de hilos de plataforma vivos y de memoria residente del proceso,
+ * más colecciones de GC durante la medición. El cliente corre en hilos virtuales y es idéntico en ambos modos.
+ *
+ * Ejecutar con: mvn -Pcarga test -Dcarga.hilos=comparar -Dcarga.concurrencia=1000
+ */
+class ComparacionHilos {
+
+	private static final long MB = 1024 * 1024;
+
+	/**
+	 * Resultado de la medición de un modo
+	 */
+	record Resultado(String modo, RegistroLatencias total, int segundos, Muestreo memoria) {}
+
+	static void comparar(int concurrencia, int calentamiento, int duracion, Map<Operacion, Integer> mezcla) throws Exception {
+		List<Resultado> resultados = new ArrayList<>();
+		for (boolean virtual : new boolean[] { false, true }) {
+			String modo = virtual ? "virtual" : "plataforma";
+			ConfigurableApplicationContext contexto = PruebaCarga.levantarAplicacion("spring.threads.virtual.enabled=" + virtual);
+			try {
+				PruebaCarga prueba = new PruebaCarga(PruebaCarga.urlAplicacion(contexto), mezcla,
+						PruebaCarga.idsProductos(contexto),
+						contexto.getEnvironment().getProperty("carga.semilla.usuarios", Integer.class, 20000));
+				System.out.println("Hilos " + modo + " | concurrencia " + concurrencia + " | mezcla " + mezcla);
+
+				if (calentamiento > 0) {
+					System.out.println("Calentamiento de " + calentamiento + " s (no se reporta)...");
+					prueba.ejecutar(concurrencia, calentamiento);
+				}
+				System.out.println("Midiendo durante " + duracion + " s...");
+				Map<Operacion, RegistroLatencias> registros;
+				Muestreo memoria = new Muestreo();
+				try {
+					registros = prueba.ejecutar(concurrencia, duracion);
+				} finally {
+					memoria.detener();
+				}
+				PruebaCarga.imprimirReporte(registros, duracion);
+
+				RegistroLatencias total = new RegistroLatencias();
+				registros.values().forEach(total::combinar);
+				resultados.add(new Resultado(modo, total, duracion, memoria));
+			} finally {
+				contexto.close();
+			}
+		}
+		imprimirComparacion(resultados);
+	}
+
+	private static void imprimirComparacion(List<Resultado> resultados) {
+		String formato = "%-11s %10s %9s %10s %10s %10s %9s %9s %9s %7s %8s%n";
+		System.out.println();
+		System.out.printf(formato, "hilos", "peticiones", "error%", "req/s", "ok/s", "p99 ms",
+				"heap MB", "hilos", "RSS MB", "GCs", "GC ms");
+		for (Resultado r : resultados) {
+			Muestreo m = r.memoria();
+			System.out.printf(Locale.ROOT, formato, r.modo(),
+					r.total().getCantidad(),
+					String.format(Locale.ROOT, "%.2f", r.total().getPorcentajeErrores()),
+					String.format(Locale.ROOT, "%.1f", (double) r.total().getCantidad() / r.segundos()),
+					String.format(Locale.ROOT, "%.1f", (double) (r.total().getCantidad() - r.total().getErrores()) / r.segundos()),
+					String.format(Locale.ROOT, "%.2f", r.total().percentilMs(99)),
+					m.heapMaximo / MB,
+					m.hilosMaximo,
+					m.rssMaximo >= 0 ? String.valueOf(m.rssMaximo / MB) : "-",
+					m.colecciones,
+					m.tiempoGcMs);
+		}
+	}
+
+	/**
+	 * Muestreo de memoria del proceso cada 100 ms mientras dura la medición
+	 * hilosMaximo cuenta solo hilos de plataforma (los hilos virtuales no son hilos del sistema operativo)
+	 */
+	static final class Muestreo {
+
+		private final ScheduledExecutorService programador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+			Thread hilo = new Thread(tarea, "muestreo-memoria");
+			hilo.setDaemon(true);
+			return hilo;
+		});
+		private final ThreadMXBean hilos = ManagementFactory.getThreadMXBean();
+		private final long coleccionesIniciales;
+		private final long tiempoGcInicialMs;
+
+		private volatile long heapMaximo;
+		private volatile long rssMaximo = -1;
+		private int hilosMaximo;
+		private long colecciones;
+		private long tiempoGcMs;
+
+		Muestreo() {
+			// Partir del heap vivo tras la siembra y el calentamiento, no de la basura acumulada
+			System.gc();
+			hilos.resetPeakThreadCount();
+			coleccionesIniciales = totalColecciones();
+			tiempoGcInicialMs = totalTiempoGcMs();
+			programador.scheduleAtFixedRate(this::muestrear, 0, 100, TimeUnit.MILLISECONDS);
+		}
+
+		void detener() throws InterruptedException {
+			programador.shutdown();
+			programador.awaitTermination(1, TimeUnit.SECONDS);
+			hilosMaximo = hilos.getPeakThreadCount();
+			colecciones = totalColecciones() - coleccionesIniciales;
+			tiempoGcMs = totalTiempoGcMs() - tiempoGcInicialMs;
+		}
+
+		private void muestrear() {
+			heapMaximo = Math.max(heapMaximo, ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+			long rss = memoriaResidente();
+			if (rss > rssMaximo) {
+				rssMaximo = rss;
+			}
+		}
+
+		/**
+		 * VmRSS del proceso en bytes (solo Linux; -1 si no está disponible)
+		 */
+		private static long memoriaResidente() {
+			try {
+				for (String linea : Files.readAllLines(Path.of("/proc/self/status"))) {
+					if (linea.startsWith("VmRSS:")) {
+						return Long.parseLong(linea.replaceAll("\\D", "")) * 1024;
+					}
+				}
+			} catch (IOException | NumberFormatException e) {
+				// Sistema sin /proc: se reporta "-"
+			}
+			return -1;
+		}
+
+		private static long totalColecciones() {
+			long total = 0;
+			for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+				total += Math.max(0, gc.getCollectionCount());
+			}
+			return total;
+		}
+
+		private static long totalTiempoGcMs() {
+			long total = 0;
+			for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+				total += Math.max(0, gc.getCollectionTime());
+			}
+			return total;
+		}
+	}
+}
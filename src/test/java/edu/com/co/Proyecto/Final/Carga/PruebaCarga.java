@@ -0,0 +1,392 @@
+package edu.com.co.Proyecto.Final.Carga;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.imageio.ImageIO;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import edu.com.co.Proyecto.Final.ProyectoFinalApplication;
+import edu.com.co.Proyecto.Final.Config.dataInitializerMasivo;
+
+/**
+ * Prueba de carga de extremo a extremo contra los endpoints reales
+ *
+ * Sin carga.url levanta la aplicación con el perfil "carga" sobre la base de datos embebida de las pruebas
+ * (dataInitializerMasivo siembra los datos); con carga.url ataca una instancia ya desplegada.
+ * Cada usuario virtual inicia sesión con JWT y ejecuta operaciones según la mezcla configurada.
+ * Al final reporta por operación: peticiones, errores, throughput y latencias p50/p99/máxima.
+ * carga.hilos=plataforma|virtual elige cómo atiende Tomcat las peticiones de la aplicación levantada;
+ * carga.hilos=comparar ejecuta la misma carga en ambos modos (ver ComparacionHilos).
+ *
+ * Ejecutar con: mvn -Pcarga test -Dcarga.concurrencia=32 -Dcarga.duracion-segundos=120
+ */
+public class PruebaCarga {
+
+	/**
+	 * Operaciones de la mezcla de tráfico
+	 */
+	enum Operacion {
+		HOME, PRODUCTO, BUSCAR, LOGIN, SUBIDA, IMAGEN, RESENA;
+
+		static Operacion desde(String nombre) {
+			return valueOf(nombre.trim().toUpperCase(Locale.ROOT));
+		}
+	}
+
+	private static final String MEZCLA_DEFECTO = "home:25,producto:30,buscar:15,imagen:15,resena:8,login:5,subida:2";
+
+	private static final String[] TERMINOS = {
+		"chocolate", "fresa", "torta de fresa", "cheesecake", "vainilla y coco", "brownie", "mousse de mango", "inexistente"
+	};
+
+	private static final String[] IMAGENES = {
+		"Cheesecake-de-fresa.webp", "churros.webp", "tiramisu.webp", "torta_chocolate.webp", "milhojas.webp", "logo.png"
+	};
+
+	private static final String[] VARIANTES = { "miniatura", "tarjeta", "detalle" };
+
+	private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+
+	private final String url;
+	private final HttpClient cliente;
+	private final Operacion[] ruleta;
+	private final long[] idsProductos;
+	private final int usuarios;
+	private final byte[] imagenSubida;
+
+	PruebaCarga(String url, Map<Operacion, Integer> mezcla, long[] idsProductos, int usuarios) throws IOException {
+		this.url = url;
+		this.cliente = HttpClient.newBuilder()
+				.followRedirects(HttpClient.Redirect.NEVER)
+				.connectTimeout(Duration.ofSeconds(10))
+				.build();
+		this.idsProductos = idsProductos;
+		this.usuarios = usuarios;
+		this.imagenSubida = generarPng();
+
+		// Ruleta de 100 casillas (o la suma de pesos) para elegir la operación en O(1)
+		List<Operacion> casillas = new ArrayList<>();
+		mezcla.forEach((operacion, peso) -> {
+			for (int i = 0; i < peso; i++) {
+				casillas.add(operacion);
+			}
+		});
+		if (casillas.isEmpty()) {
+			throw new IllegalArgumentException("La mezcla de tráfico no tiene operaciones");
+		}
+		this.ruleta = casillas.toArray(new Operacion[0]);
+	}
+
+	public static void main(String[] args) throws Exception {
+		int concurrencia = Integer.getInteger("carga.concurrencia", 32);
+		int calentamiento = Integer.getInteger("carga.calentamiento-segundos", 10);
+		int duracion = Integer.getInteger("carga.duracion-segundos", 60);
+		Map<Operacion, Integer> mezcla = parsearMezcla(System.getProperty("carga.mezcla", MEZCLA_DEFECTO));
+		String hilos = System.getProperty("carga.hilos", "").trim().toLowerCase(Locale.ROOT);
+
+		if (hilos.equals("comparar")) {
+			ComparacionHilos.comparar(concurrencia, calentamiento, duracion, mezcla);
+			return;
+		}
+
+		String url = System.getProperty("carga.url");
+		ConfigurableApplicationContext contexto = null;
+		long[] idsProductos;
+		int usuarios;
+
+		if (url == null || url.isBlank()) {
+			contexto = hilos.isEmpty()
+					? levantarAplicacion()
+					: levantarAplicacion("spring.threads.virtual.enabled=" + hilos.equals("virtual"));
+			url = urlAplicacion(contexto);
+			idsProductos = idsProductos(contexto);
+			usuarios = contexto.getEnvironment().getProperty("carga.semilla.usuarios", Integer.class, 20000);
+		} else {
+			// Instancia externa sembrada con el perfil carga: rango de ids de productos y cantidad de usuarios
+			long desde = Long.getLong("carga.producto-desde", 1L);
+			long hasta = Long.getLong("carga.producto-hasta", 100000L);
+			idsProductos = new long[(int) (hasta - desde + 1)];
+			for (int i = 0; i < idsProductos.length; i++) {
+				idsProductos[i] = desde + i;
+			}
+			usuarios = Integer.getInteger("carga.semilla.usuarios", 20000);
+		}
+
+		try {
+			PruebaCarga prueba = new PruebaCarga(url, mezcla, idsProductos, usuarios);
+			System.out.println("Objetivo: " + url + " | concurrencia " + concurrencia + " | mezcla " + mezcla);
+
+			if (calentamiento > 0) {
+				System.out.println("Calentamiento de " + calentamiento + " s (no se reporta)...");
+				prueba.ejecutar(concurrencia, calentamiento);
+			}
+			System.out.println("Midiendo durante " + duracion + " s...");
+			Map<Operacion, RegistroLatencias> resultados = prueba.ejecutar(concurrencia, duracion);
+			imprimirReporte(resultados, duracion);
+		} finally {
+			if (contexto != null) {
+				contexto.close();
+			}
+		}
+	}
+
+	/**
+	 * Levantar la aplicación con el perfil carga sobre la base de datos embebida de las pruebas
+	 */
+	static ConfigurableApplicationContext levantarAplicacion(String... propiedades) {
+		System.out.println("Levantando la aplicación con el perfil carga (la siembra puede tardar)...");
+		// DevTools se lee antes que las propiedades de la aplicación: el reinicio en caliente solo agrega ruido
+		System.setProperty("spring.devtools.restart.enabled", "false");
+		return new SpringApplicationBuilder(ProyectoFinalApplication.class)
+				.profiles("carga")
+				.properties("server.port=0", "spring.main.banner-mode=off", "logging.level.root=WARN")
+				.properties(propiedades)
+				.run();
+	}
+
+	static String urlAplicacion(ConfigurableApplicationContext contexto) {
+		return "http://localhost:" + contexto.getEnvironment().getProperty("local.server.port");
+	}
+
+	static long[] idsProductos(ConfigurableApplicationContext contexto) {
+		return contexto.getBean(JdbcTemplate.class)
+				.queryForList("SELECT id_producto FROM productos ORDER BY id_producto", Long.class)
+				.stream().mapToLong(Long::longValue).toArray();
+	}
+
+	/**
+	 * Ejecutar la carga con N usuarios virtuales durante los segundos indicados
+	 * Cada usuario virtual corre en un hilo virtual: el cliente escala a miles de usuarios
+	 * y no suma hilos de plataforma a los de la aplicación cuando se levanta en el mismo proceso
+	 */
+	Map<Operacion, RegistroLatencias> ejecutar(int concurrencia, int segundos) throws Exception {
+		long fin = System.nanoTime() + segundos * 1_000_000_000L;
+		ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor();
+		try {
+			List<Future<Map<Operacion, RegistroLatencias>>> tareas = new ArrayList<>();
+			for (int i = 0; i < concurrencia; i++) {
+				int usuarioVirtual = i;
+				tareas.add(hilos.submit(() -> usuarioVirtual(usuarioVirtual, fin)));
+			}
+
+			Map<Operacion, RegistroLatencias> total = new EnumMap<>(Operacion.class);
+			for (Future<Map<Operacion, RegistroLatencias>> tarea : tareas) {
+				tarea.get().forEach((operacion, registro) ->
+						total.computeIfAbsent(operacion, o -> new RegistroLatencias()).combinar(registro));
+			}
+			return total;
+		} finally {
+			hilos.shutdownNow();
+		}
+	}
+
+	// ==================== USUARIO VIRTUAL ====================
+
+	private Map<Operacion, RegistroLatencias> usuarioVirtual(int numero, long fin) {
+		Map<Operacion, RegistroLatencias> registros = new EnumMap<>(Operacion.class);
+		String nombreUsuario = dataInitializerMasivo.PREFIJO_USUARIO + (numero % usuarios);
+		ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+		String token = iniciarSesion(nombreUsuario);
+		// Con cientos de usuarios a la vez el login inicial puede rechazarse (pool de contraseñas o límite de
+		// concurrencia saturados): se reintenta, porque sin token todas las operaciones contarían como error
+		while (token == null && System.nanoTime() - fin < 0) {
+			try {
+				Thread.sleep(50 + aleatorio.nextInt(200));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return registros;
+			}
+			token = iniciarSesion(nombreUsuario);
+		}
+
+		while (System.nanoTime() - fin < 0) {
+			Operacion operacion = ruleta[aleatorio.nextInt(ruleta.length)];
+			long inicio = System.nanoTime();
+			boolean exito;
+			try {
+				exito = switch (operacion) {
+					case HOME -> exitosa(get("/user/home", token));
+					case PRODUCTO -> exitosa(get("/user/producto/" + productoCaliente(aleatorio), token));
+					case BUSCAR -> exitosa(get("/user/buscar?q="
+							+ URLEncoder.encode(TERMINOS[aleatorio.nextInt(TERMINOS.length)], StandardCharsets.UTF_8), token));
+					case LOGIN -> iniciarSesion(nombreUsuario) != null;
+					case SUBIDA -> exitosa(subirImagen(token));
+					case IMAGEN -> exitosa(get("/imagenes/" + IMAGENES[aleatorio.nextInt(IMAGENES.length)]
+							+ (aleatorio.nextInt(3) == 0 ? "?variante=" + VARIANTES[aleatorio.nextInt(VARIANTES.length)] : ""), null));
+					case RESENA -> exitosa(crearResena(token, aleatorio));
+				};
+			} catch (IOException e) {
+				exito = false;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+			registros.computeIfAbsent(operacion, o -> new RegistroLatencias()).registrar(System.nanoTime() - inicio, exito);
+		}
+		return registros;
+	}
+
+	/**
+	 * Producto con sesgo de popularidad: el 80% de las visitas va al 1% de los productos
+	 */
+	private long productoCaliente(ThreadLocalRandom aleatorio) {
+		int calientes = Math.max(1, idsProductos.length / 100);
+		int indice = aleatorio.nextInt(10) < 8 ? aleatorio.nextInt(calientes) : aleatorio.nextInt(idsProductos.length);
+		return idsProductos[indice];
+	}
+
+	private String iniciarSesion(String nombreUsuario) {
+		String cuerpo = "{\"username\":\"" + nombreUsuario + "\",\"password\":\""
+				+ dataInitializerMasivo.CONTRASENA_USUARIOS + "\"}";
+		try {
+			HttpResponse<String> respuesta = cliente.send(HttpRequest.newBuilder(URI.create(url + "/api/auth/login"))
+					.header("Content-Type", "application/json")
+					.POST(HttpRequest.BodyPublishers.ofString(cuerpo))
+					.build(), HttpResponse.BodyHandlers.ofString());
+			Matcher matcher = TOKEN.matcher(respuesta.body());
+			return respuesta.statusCode() == 200 && matcher.find() ? matcher.group(1) : null;
+		} catch (IOException e) {
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+	}
+
+	private HttpResponse<Void> get(String ruta, String token) throws IOException, InterruptedException {
+		return cliente.send(autenticada(HttpRequest.newBuilder(URI.create(url + ruta)), token).GET().build(),
+				HttpResponse.BodyHandlers.discarding());
+	}
+
+	/**
+	 * Reseña sobre un producto al azar (uniforme, para que casi nunca choque con una reseña previa del usuario)
+	 */
+	private HttpResponse<Void> crearResena(String token, ThreadLocalRandom aleatorio) throws IOException, InterruptedException {
+		long idProducto = idsProductos[aleatorio.nextInt(idsProductos.length)];
+		String formulario = "calificacion=" + (1 + aleatorio.nextInt(5))
+				+ "&comentarioResena=" + URLEncoder.encode("Reseña de la prueba de carga", StandardCharsets.UTF_8);
+		return cliente.send(autenticada(HttpRequest.newBuilder(URI.create(url + "/user/reviews/new/" + idProducto)), token)
+				.header("Content-Type", "application/x-www-form-urlencoded")
+				.POST(HttpRequest.BodyPublishers.ofString(formulario))
+				.build(), HttpResponse.BodyHandlers.discarding());
+	}
+
+	private HttpResponse<Void> subirImagen(String token) throws IOException, InterruptedException {
+		String limite = "----carga" + System.nanoTime();
+		ByteArrayOutputStream cuerpo = new ByteArrayOutputStream(imagenSubida.length + 256);
+		cuerpo.write(("--" + limite + "\r\n"
+				+ "Content-Disposition: form-data; name=\"file\"; filename=\"carga.png\"\r\n"
+				+ "Content-Type: image/png\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+		cuerpo.write(imagenSubida);
+		cuerpo.write(("\r\n--" + limite + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+		return cliente.send(autenticada(HttpRequest.newBuilder(URI.create(url + "/api/images/upload")), token)
+				.header("Content-Type", "multipart/form-data; boundary=" + limite)
+				.POST(HttpRequest.BodyPublishers.ofByteArray(cuerpo.toByteArray()))
+				.build(), HttpResponse.BodyHandlers.discarding());
+	}
+
+	private static HttpRequest.Builder autenticada(HttpRequest.Builder peticion, String token) {
+		peticion.timeout(Duration.ofSeconds(30));
+		return token != null ? peticion.header("Authorization", "Bearer " + token) : peticion;
+	}
+
+	/**
+	 * 2xx y 3xx cuentan como éxito, salvo redirecciones a una página de error o al login
+	 */
+	private static boolean exitosa(HttpResponse<?> respuesta) {
+		int estado = respuesta.statusCode();
+		if (estado >= 400) {
+			return false;
+		}
+		String destino = respuesta.headers().firstValue("Location").orElse("");
+		return !destino.contains("error=") && !destino.contains("/login");
+	}
+
+	// ==================== CONFIGURACIÓN Y REPORTE ====================
+
+	/**
+	 * Mezcla en formato "operacion:peso,operacion:peso" (ej: home:25,producto:30)
+	 */
+	static Map<Operacion, Integer> parsearMezcla(String mezcla) {
+		Map<Operacion, Integer> pesos = new LinkedHashMap<>();
+		for (String parte : mezcla.split(",")) {
+			if (parte.isBlank()) {
+				continue;
+			}
+			String[] par = parte.split(":");
+			if (par.length != 2) {
+				throw new IllegalArgumentException("Entrada de mezcla inválida: " + parte);
+			}
+			int peso = Integer.parseInt(par[1].trim());
+			if (peso < 0) {
+				throw new IllegalArgumentException("El peso no puede ser negativo: " + parte);
+			}
+			pesos.put(Operacion.desde(par[0]), peso);
+		}
+		return pesos;
+	}
+
+	static void imprimirReporte(Map<Operacion, RegistroLatencias> resultados, int segundos) {
+		String formato = "%-10s %10s %9s %8s %10s %10s %10s %10s%n";
+		System.out.println();
+		System.out.printf(formato, "operacion", "peticiones", "errores", "error%", "req/s", "p50 ms", "p99 ms", "max ms");
+
+		RegistroLatencias total = new RegistroLatencias();
+		resultados.forEach((operacion, registro) -> {
+			imprimirFila(formato, operacion.name().toLowerCase(Locale.ROOT), registro, segundos);
+			total.combinar(registro);
+		});
+		imprimirFila(formato, "total", total, segundos);
+	}
+
+	private static void imprimirFila(String formato, String nombre, RegistroLatencias registro, int segundos) {
+		System.out.printf(Locale.ROOT, formato, nombre,
+				registro.getCantidad(),
+				registro.getErrores(),
+				String.format(Locale.ROOT, "%.2f", registro.getPorcentajeErrores()),
+				String.format(Locale.ROOT, "%.1f", (double) registro.getCantidad() / segundos),
+				String.format(Locale.ROOT, "%.2f", registro.percentilMs(50)),
+				String.format(Locale.ROOT, "%.2f", registro.percentilMs(99)),
+				String.format(Locale.ROOT, "%.2f", registro.percentilMs(100)));
+	}
+
+	/**
+	 * PNG pequeño generado en memoria para las subidas
+	 */
+	private static byte[] generarPng() throws IOException {
+		BufferedImage imagen = new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB);
+		for (int x = 0; x < 64; x++) {
+			for (int y = 0; y < 64; y++) {
+				imagen.setRGB(x, y, (x * 4) << 16 | (y * 4) << 8 | 0x80);
+			}
+		}
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+		ImageIO.write(imagen, "png", salida);
+		return salida.toByteArray();
+	}
+}
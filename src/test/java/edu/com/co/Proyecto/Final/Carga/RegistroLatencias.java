@@ -0,0 +1,63 @@
+package edu.com.co.Proyecto.Final.Carga;
+
+import java.util.Arrays;
+
+/**
+ * Latencias y errores de una operación de la prueba de carga
+ * Cada hilo usa su propio registro (sin sincronización) y al final se combinan
+ */
+class RegistroLatencias {
+
+	private long[] latenciasNanos = new long[1024];
+	private int cantidad;
+	private long errores;
+	private boolean ordenado;
+
+	void registrar(long nanos, boolean exito) {
+		if (cantidad == latenciasNanos.length) {
+			latenciasNanos = Arrays.copyOf(latenciasNanos, cantidad * 2);
+		}
+		latenciasNanos[cantidad++] = nanos;
+		if (!exito) {
+			errores++;
+		}
+		ordenado = false;
+	}
+
+	void combinar(RegistroLatencias otro) {
+		if (cantidad + otro.cantidad > latenciasNanos.length) {
+			latenciasNanos = Arrays.copyOf(latenciasNanos, cantidad + otro.cantidad);
+		}
+		System.arraycopy(otro.latenciasNanos, 0, latenciasNanos, cantidad, otro.cantidad);
+		cantidad += otro.cantidad;
+		errores += otro.errores;
+		ordenado = false;
+	}
+
+	int getCantidad() {
+		return cantidad;
+	}
+
+	long getErrores() {
+		return errores;
+	}
+
+	double getPorcentajeErrores() {
+		return cantidad > 0 ? errores * 100.0 / cantidad : 0.0;
+	}
+
+	/**
+	 * Percentil por rango más cercano, en milisegundos (p entre 0 y 100)
+	 */
+	double percentilMs(double p) {
+		if (cantidad == 0) {
+			return 0.0;
+		}
+		if (!ordenado) {
+			Arrays.sort(latenciasNanos, 0, cantidad);
+			ordenado = true;
+		}
+		int indice = (int) Math.ceil(p / 100.0 * cantidad) - 1;
+		return latenciasNanos[Math.max(0, Math.min(indice, cantidad - 1))] / 1_000_000.0;
+	}
+}
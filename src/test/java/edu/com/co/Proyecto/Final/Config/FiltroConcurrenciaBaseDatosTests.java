@@ -0,0 +1,57 @@
+package edu.com.co.Proyecto.Final.Config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Modo de hilos virtuales: el límite de concurrencia sigue al pool de conexiones y,
+ * con todos los permisos ocupados, las peticiones que usan la base de datos reciben 503
+ */
+@SpringBootTest(properties = { "spring.threads.virtual.enabled=true", "concurrencia.espera-ms=50" })
+@AutoConfigureMockMvc
+class FiltroConcurrenciaBaseDatosTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private FiltroConcurrenciaBaseDatos filtro;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Test
+	void limiteIgualAlPoolDeConexiones() throws Exception {
+		assertEquals(dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize(), filtro.getLimite());
+	}
+
+	@Test
+	void saturadoRespondeServicioNoDisponible() throws Exception {
+		mockMvc.perform(get("/home")).andExpect(status().isOk());
+		assertEquals(filtro.getLimite(), filtro.getPermisos().availablePermits());
+
+		filtro.getPermisos().acquire(filtro.getLimite());
+		try {
+			mockMvc.perform(get("/home"))
+					.andExpect(status().isServiceUnavailable())
+					.andExpect(header().string("Retry-After", "1"));
+			// Los recursos estáticos no pasan por el límite
+			mockMvc.perform(get("/css/styles.css")).andExpect(status().isOk());
+		} finally {
+			filtro.getPermisos().release(filtro.getLimite());
+		}
+		mockMvc.perform(get("/home")).andExpect(status().isOk());
+	}
+}
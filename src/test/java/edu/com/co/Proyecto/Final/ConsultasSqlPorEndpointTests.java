@@ -0,0 +1,202 @@
+package edu.com.co.Proyecto.Final;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import edu.com.co.Proyecto.Final.Model.producto;
+import edu.com.co.Proyecto.Final.Model.usuario;
+import edu.com.co.Proyecto.Final.Repository.productoRepository;
+import edu.com.co.Proyecto.Final.Repository.rolRepository;
+import edu.com.co.Proyecto.Final.Repository.usuarioRepository;
+import edu.com.co.Proyecto.Final.Security.usuarioDetailsService;
+import edu.com.co.Proyecto.Final.Service.detalleProductoService;
+import edu.com.co.Proyecto.Final.Service.estadisticasService;
+import edu.com.co.Proyecto.Final.Service.resenaService;
+import edu.com.co.Proyecto.Final.Service.usuarioService;
+
+/**
+ * Cantidad exacta de sentencias SQL que emite cada endpoint que muestra reseñas
+ * Cada producto y usuario de prueba tiene varias reseñas: si una vista vuelve a cargar
+ * autores o productos de forma perezosa (N+1), la cuenta cambia y la prueba falla
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ConsultasSqlPorEndpointTests {
+
+	private static final String RESENADOR = "resenador0";
+	private static final int RESENADORES = 6;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private usuarioRepository usuarioRepo;
+
+	@Autowired
+	private rolRepository rolRepo;
+
+	@Autowired
+	private productoRepository productoRepo;
+
+	@Autowired
+	private resenaService resenaService;
+
+	@Autowired
+	private detalleProductoService detalleProductoService;
+
+	@Autowired
+	private estadisticasService estadisticasService;
+
+	@Autowired
+	private usuarioService usuarioService;
+
+	@Autowired
+	private usuarioDetailsService usuarioDetailsService;
+
+	private Long idProducto;
+	private Long idResenaPropia;
+
+	@BeforeEach
+	void crearResenas() {
+		idProducto = productoRepo.findByNombreProducto("Cheesecake de Fresa").map(producto::getIdProducto).orElseThrow();
+
+		// Varios autores reseñan el mismo producto; el primero además reseña todos los productos
+		for (int i = 0; i < RESENADORES; i++) {
+			String nombre = "resenador" + i;
+			if (usuarioRepo.findByNombreUsuario(nombre).isPresent()) {
+				continue;
+			}
+			usuario u = new usuario();
+			u.setNombreUsuario(nombre);
+			u.setContrasenaUsuario("sin-contrasena");
+			u.setEmailUsuario(nombre + "@example.com");
+			u.setRol(rolRepo.findByNombreRol("USER").orElseThrow());
+			u = usuarioRepo.save(u);
+
+			if (i == 0) {
+				for (producto p : productoRepo.findAll()) {
+					resenaService.crearResena(u.getIdUsuario(), p.getIdProducto(), 5, "Reseña de " + p.getNombreProducto());
+				}
+			} else {
+				resenaService.crearResena(u.getIdUsuario(), idProducto, 1 + i % 5, i % 2 == 0 ? "Comentario " + i : null);
+			}
+		}
+
+		Long idResenador = usuarioRepo.findByNombreUsuario(RESENADOR).orElseThrow().getIdUsuario();
+		idResenaPropia = resenaService.obtenerResenaUsuarioProducto(idResenador, idProducto).orElseThrow().getIdResena();
+	}
+
+	@Test
+	@WithMockUser(username = RESENADOR, roles = "USER")
+	void detalleDeProductoUsuario() throws Exception {
+		// Sin cache: producto + página de reseñas con sus autores
+		detalleProductoService.invalidar(idProducto);
+		assertSentencias(2, get("/user/producto/{id}", idProducto));
+
+		// Con cache: ninguna
+		assertSentencias(0, get("/user/producto/{id}", idProducto));
+
+		// Filtros y páginas siguientes: solo la página de reseñas
+		assertSentencias(1, get("/user/producto/{id}", idProducto).param("calificacion", "5").param("orden", "RELEVANTES"));
+		assertSentencias(1, get("/user/producto/{id}", idProducto).param("conComentario", "true").param("tamano", "2"));
+	}
+
+	@Test
+	@WithMockUser(username = "admin", roles = "ADMIN")
+	void detalleDeProductoAdministrador() throws Exception {
+		detalleProductoService.invalidar(idProducto);
+		assertSentencias(2, get("/admin/producto/{id}", idProducto));
+		assertSentencias(0, get("/admin/producto/{id}", idProducto));
+	}
+
+	@Test
+	@WithMockUser(username = RESENADOR, roles = "USER")
+	void perfilConResenas() throws Exception {
+		// Usuario autenticado con su rol + proyección de sus reseñas con el nombre de cada producto
+		assertSentencias(2, get("/user/profile"));
+	}
+
+	@Test
+	@WithMockUser(username = RESENADOR, roles = "USER")
+	void formularioEditarResena() throws Exception {
+		// Reseña con su producto + usuario autenticado con su rol
+		assertSentencias(2, get("/user/reviews/edit/{id}", idResenaPropia));
+	}
+
+	@Test
+	@WithMockUser(username = RESENADOR, roles = "USER")
+	void usuarioActualApi() throws Exception {
+		// Usuario autenticado con su rol (@UsuarioActual)
+		assertSentencias(1, get("/api/auth/me"));
+	}
+
+	@Test
+	@WithMockUser(username = RESENADOR, roles = "USER")
+	void catalogoUsuario() throws Exception {
+		assertSentencias(1, get("/user/home"));
+		assertSentencias(1, get("/user/home").param("orden", "CALIFICACION").param("tamano", "2"));
+	}
+
+	@Test
+	@WithMockUser(username = "admin", roles = "ADMIN")
+	void panelAdministrador() throws Exception {
+		// Sin cache: tres COUNT, suma de agregados, mejor calificados, reseñas por día + página del catálogo
+		estadisticasService.invalidar();
+		assertSentencias(7, get("/admin/panel"));
+
+		// Con las estadísticas en cache: solo la página del catálogo
+		assertSentencias(1, get("/admin/panel"));
+	}
+
+	@Test
+	void loginJwtConUsuarioCacheado() throws Exception {
+		if (usuarioRepo.findByNombreUsuario("cacheado").isEmpty()) {
+			usuarioService.registrarNuevoUsuario("cacheado", "cacheado@example.com", "clave123", "clave123", 3001234567L, null);
+		}
+		usuario u = usuarioRepo.findByNombreUsuario("cacheado").orElseThrow();
+		usuarioDetailsService.invalidar("cacheado");
+
+		// Sin cache: usuario con su rol + versión del token; después autenticar y emitir el token no consulta la base de datos
+		assertSentencias(2, login("cacheado", "clave123"));
+		assertSentencias(0, login("cacheado", "clave123"));
+		// Variante en mayúsculas: la misma cuenta para MySQL, la misma entrada del cache
+		assertSentencias(0, login("CACHEADO", "clave123"));
+
+		// Por email: el mismo usuario en una sola consulta (nombre o email), con su propia entrada en el cache
+		assertSentencias(1, login("cacheado@example.com", "clave123"));
+		assertSentencias(0, login("cacheado@example.com", "clave123"));
+
+		// Cambiar la contraseña invalida la entrada cacheada
+		usuarioService.cambiarContrasena(u.getIdUsuario(), "clave456");
+		mockMvc.perform(login("cacheado", "clave123")).andExpect(status().isUnauthorized());
+		mockMvc.perform(login("CACHEADO", "clave123")).andExpect(status().isUnauthorized());
+		mockMvc.perform(login("cacheado", "clave456")).andExpect(status().isOk());
+		usuarioService.cambiarContrasena(u.getIdUsuario(), "clave123");
+	}
+
+	// ==================== MÉTODOS PRIVADOS ====================
+
+	private RequestBuilder login(String usuario, String contrasena) {
+		return post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"username\":\"" + usuario + "\",\"password\":\"" + contrasena + "\"}");
+	}
+
+	private void assertSentencias(int esperadas, RequestBuilder peticion) throws Exception {
+		ContadorSentenciasSql.reiniciar();
+		mockMvc.perform(peticion).andExpect(status().isOk());
+		assertEquals(esperadas, ContadorSentenciasSql.cantidad(),
+				() -> "Sentencias SQL emitidas:\n" + String.join("\n", ContadorSentenciasSql.sentencias()));
+	}
+}
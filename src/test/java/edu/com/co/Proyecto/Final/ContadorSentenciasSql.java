@@ -0,0 +1,39 @@
+package edu.com.co.Proyecto.Final;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Registra cada sentencia SQL que Hibernate prepara en el hilo actual
+ * Se activa en las pruebas con hibernate.session_factory.statement_inspector; solo registra en los hilos
+ * que llamaron a reiniciar(), así el resto (arranque, benchmarks) no acumula sentencias
+ */
+public class ContadorSentenciasSql implements StatementInspector {
+
+	private static final ThreadLocal<List<String>> SENTENCIAS = new ThreadLocal<>();
+
+	@Override
+	public String inspect(String sql) {
+		List<String> sentencias = SENTENCIAS.get();
+		if (sentencias != null) {
+			sentencias.add(sql);
+		}
+		return sql;
+	}
+
+	public static void reiniciar() {
+		SENTENCIAS.set(new ArrayList<>());
+	}
+
+	public static List<String> sentencias() {
+		List<String> sentencias = SENTENCIAS.get();
+		return sentencias != null ? List.copyOf(sentencias) : List.of();
+	}
+
+	public static int cantidad() {
+		List<String> sentencias = SENTENCIAS.get();
+		return sentencias != null ? sentencias.size() : 0;
+	}
+}
@@ -0,0 +1,116 @@
+package edu.com.co.Proyecto.Final;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import edu.com.co.Proyecto.Final.Model.usuario;
+import edu.com.co.Proyecto.Final.Repository.usuarioRepository;
+import edu.com.co.Proyecto.Final.Security.contrasenaService;
+import edu.com.co.Proyecto.Final.Security.usuarioDetailsService;
+import edu.com.co.Proyecto.Final.Service.usuarioService;
+
+/**
+ * Hashing de contraseñas: rehash transparente al iniciar sesión y cuentas OAuth2 sin contraseña
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ContrasenasTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private usuarioRepository usuarioRepo;
+
+	@Autowired
+	private usuarioService usuarioService;
+
+	@Autowired
+	private usuarioDetailsService usuarioDetailsService;
+
+	@Autowired
+	private contrasenaService contrasenaService;
+
+	@Test
+	void loginRecalculaHashDeCostoMenor() throws Exception {
+		usuario u = usuarioRepo.findByNombreUsuario("rehash").orElseGet(() ->
+				usuarioService.registrarNuevoUsuario("rehash", "rehash@example.com", "clave123", "clave123", 3001234567L, null));
+		u.setContrasenaUsuario(new BCryptPasswordEncoder(4).encode("clave123"));
+		usuarioRepo.save(u);
+		usuarioDetailsService.invalidar("rehash", "rehash@example.com");
+
+		// Por email, para comprobar que también se descarta la entrada cacheada con esa clave
+		mockMvc.perform(login("rehash@example.com", "clave123")).andExpect(status().isOk());
+
+		String hash = usuarioRepo.findByNombreUsuario("rehash").orElseThrow().getContrasenaUsuario();
+		assertTrue(hash.startsWith(String.format("$2a$%02d$", contrasenaService.getCosto())), hash);
+		assertFalse(contrasenaService.upgradeEncoding(hash));
+		mockMvc.perform(login("rehash@example.com", "clave123")).andExpect(status().isOk());
+		mockMvc.perform(login("rehash", "otra")).andExpect(status().isUnauthorized());
+	}
+
+	@Test
+	void rehashConHashDesactualizadoNoDeshaceElCambio() {
+		usuario u = usuarioRepo.findByNombreUsuario("rehash").orElseGet(() ->
+				usuarioService.registrarNuevoUsuario("rehash", "rehash@example.com", "clave123", "clave123", 3001234567L, null));
+		String hashAnterior = new BCryptPasswordEncoder(4).encode("clave123");
+
+		// La contraseña cambió (otra instancia) después de que se cacheara hashAnterior
+		usuarioService.cambiarContrasena(u.getIdUsuario(), "clave456");
+		String hashActual = usuarioRepo.findByNombreUsuario("rehash").orElseThrow().getContrasenaUsuario();
+
+		usuarioDetailsService.updatePassword(
+				User.withUsername("rehash").password(hashAnterior).roles("USER").build(),
+				contrasenaService.encode("clave123"));
+		assertEquals(hashActual, usuarioRepo.findByNombreUsuario("rehash").orElseThrow().getContrasenaUsuario());
+	}
+
+	@Test
+	void invalidarDescartaEntradasDeLaCuentaConOtraClave() {
+		usuario u = usuarioRepo.findByNombreUsuario("rehash").orElseGet(() ->
+				usuarioService.registrarNuevoUsuario("rehash", "rehash@example.com", "clave123", "clave123", 3001234567L, null));
+		usuarioDetailsService.loadUserByUsername("rehash@example.com");
+
+		// Cambio sin pasar por usuarioService; se invalida solo por nombre de usuario (como con "josé" frente a "jose")
+		String hashNuevo = new BCryptPasswordEncoder(4).encode("otra123");
+		u.setContrasenaUsuario(hashNuevo);
+		usuarioRepo.save(u);
+		usuarioDetailsService.invalidar("REHASH");
+
+		assertEquals(hashNuevo, usuarioDetailsService.loadUserByUsername("rehash@example.com").getPassword());
+	}
+
+	@Test
+	void cuentaSinContrasenaNuncaCoincide() throws Exception {
+		usuario u = usuarioRepo.findByNombreUsuario("oauth").orElseGet(() ->
+				usuarioService.registrarNuevoUsuario("oauth", "oauth@example.com", "clave123", "clave123", 3001234567L, null));
+		u.setContrasenaUsuario(contrasenaService.SIN_CONTRASENA);
+		usuarioRepo.save(u);
+		usuarioDetailsService.invalidar("oauth", "oauth@example.com");
+
+		assertFalse(contrasenaService.matches(contrasenaService.SIN_CONTRASENA, contrasenaService.SIN_CONTRASENA));
+		assertFalse(contrasenaService.matches("", ""));
+		mockMvc.perform(login("oauth", contrasenaService.SIN_CONTRASENA)).andExpect(status().isUnauthorized());
+		assertEquals(contrasenaService.SIN_CONTRASENA, usuarioRepo.findByNombreUsuario("oauth").orElseThrow().getContrasenaUsuario());
+	}
+
+	// ==================== MÉTODOS PRIVADOS ====================
+
+	private RequestBuilder login(String usuario, String contrasena) {
+		return post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"username\":\"" + usuario + "\",\"password\":\"" + contrasena + "\"}");
+	}
+}
@@ -0,0 +1,52 @@
+package edu.com.co.Proyecto.Final.Controllers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks de la detección de formato por firma (magic bytes) que valida cada subida de imagen
+ * Ejecutar con: mvn -Pbenchmark test -Dbenchmark.filtro=DeteccionFormatoImagenBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DeteccionFormatoImagenBenchmark {
+
+	private ImageController controlador;
+	private byte[] cabeceraJpeg;
+	private byte[] cabeceraSvg;
+
+	@Setup
+	public void preparar() {
+		controlador = new ImageController();
+		cabeceraJpeg = new byte[512];
+		cabeceraJpeg[0] = (byte) 0xFF;
+		cabeceraJpeg[1] = (byte) 0xD8;
+		cabeceraJpeg[2] = (byte) 0xFF;
+		cabeceraSvg = "<?xml version=\"1.0\"?><svg xmlns=\"http://www.w3.org/2000/svg\"></svg>".getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public String detectarFormatoBinario() {
+		return controlador.detectarFormatoImagen(cabeceraJpeg, cabeceraJpeg.length);
+	}
+
+	@Benchmark
+	public String detectarFormatoSvg() {
+		return controlador.detectarFormatoImagen(cabeceraSvg, cabeceraSvg.length);
+	}
+}
@@ -0,0 +1,50 @@
+package edu.com.co.Proyecto.Final.Controllers;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+
+/**
+ * Benchmarks de los métodos auxiliares de extensión y tipo MIME de ImageController
+ * No necesitan el contexto de Spring
+ * Ejecutar con: mvn -Pbenchmark test -Dbenchmark.filtro=ImageControllerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ImageControllerBenchmark {
+
+	@Param({"Cheesecake-de-fresa.webp", "logo.PNG", "documento.pdf", "sin-extension"})
+	public String nombreArchivo;
+
+	private ImageController controlador;
+
+	@Setup
+	public void preparar() {
+		controlador = new ImageController();
+	}
+
+	@Benchmark
+	public boolean validarExtension() {
+		return controlador.isAllowedExtension(controlador.getFileExtension(nombreArchivo));
+	}
+
+	@Benchmark
+	public MediaType determinarMediaType() {
+		return controlador.determinarMediaType(nombreArchivo);
+	}
+}
@@ -0,0 +1,178 @@
+package edu.com.co.Proyecto.Final;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import edu.com.co.Proyecto.Final.Model.producto;
+import edu.com.co.Proyecto.Final.Repository.productoRepository;
+import edu.com.co.Proyecto.Final.Service.productoService;
+
+/**
+ * Importación masiva (upsert por nombre en varios lotes) y exportación en streaming del catálogo
+ * Los productos importados se eliminan al terminar para no alterar las demás pruebas
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser(username = "admin", roles = "ADMIN")
+class ImportacionProductosTests {
+
+	private static final String PREFIJO = "Importado ";
+
+	// Más filas que el tamaño de lote por defecto, para cubrir varias transacciones y ventanas de exportación
+	private static final int FILAS = 1500;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private productoRepository productoRepo;
+
+	@Autowired
+	private productoService productoService;
+
+	@AfterEach
+	void eliminarImportados() {
+		for (producto p : productoRepo.findAll()) {
+			if (p.getNombreProducto().startsWith(PREFIJO) || p.getNombreProducto().startsWith("-" + PREFIJO)) {
+				productoService.eliminarProducto(p.getIdProducto());
+			}
+		}
+	}
+
+	@Test
+	void importarCsvCreaActualizaYRechaza() throws Exception {
+		StringBuilder csv = new StringBuilder("nombreProducto,precioProducto,rutaImagenProducto,descripcionProducto,ingredientesProducto\r\n");
+		for (int i = 0; i < FILAS; i++) {
+			csv.append(PREFIJO).append(i).append(',').append(1000 + i).append(",imagen.webp,Descripción ").append(i).append(",\r\n");
+		}
+		// Comillas con coma y salto de línea, duplicado dentro del último lote y filas inválidas
+		csv.append("\"Importado especial, con coma\",2500,imagen.webp,\"Línea uno\nLínea \"\"dos\"\"\",pistacho\r\n");
+		csv.append(PREFIJO).append(FILAS - 1).append(",1234,imagen.webp,Repetido,\r\n");
+		csv.append(PREFIJO).append("precio malo,abc,imagen.webp,Descripción,\r\n");
+		csv.append(PREFIJO).append("sin descripción,100,imagen.webp,,\r\n");
+
+		mockMvc.perform(post("/admin/api/productos/importar").contentType("text/csv").content(csv.toString()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.resultado.leidos").value(FILAS + 4))
+				.andExpect(jsonPath("$.resultado.creados").value(FILAS + 1))
+				.andExpect(jsonPath("$.resultado.actualizados").value(0))
+				.andExpect(jsonPath("$.resultado.duplicados").value(1))
+				.andExpect(jsonPath("$.resultado.rechazados").value(2))
+				.andExpect(jsonPath("$.resultado.errores[0]").value(startsWith("Línea " + (FILAS + 5))));
+
+		producto especial = productoRepo.findByNombreProducto("Importado especial, con coma").orElseThrow();
+		assertEquals("Línea uno\nLínea \"dos\"", especial.getDescripcionProducto());
+		assertEquals(1234.0, productoRepo.findByNombreProducto(PREFIJO + (FILAS - 1)).orElseThrow().getPrecioProducto());
+		assertTrue(productoService.buscarProductos("pistacho").stream().anyMatch(p -> p.getIdProducto().equals(especial.getIdProducto())));
+		// Un término que coincide con todas las filas importadas devuelve solo los más relevantes
+		assertEquals(productoService.TAMANO_PAGINA_MAXIMO, productoService.buscarProductos("importado").size());
+		assertEquals(5, productoService.buscarProductos("importado", 5).size());
+		// Una consulta solo de palabras vacías las busca tal cual ("Importado especial, con coma")
+		assertTrue(productoService.buscarProductos("con").stream().anyMatch(p -> p.getIdProducto().equals(especial.getIdProducto())));
+
+		// Reimportar en JSON lines actualiza el existente en lugar de crear otro
+		mockMvc.perform(post("/admin/api/productos/importar").param("formato", "jsonl")
+				.content("{\"nombreProducto\":\"Importado 1\",\"precioProducto\":99.5,\"rutaImagenProducto\":\"otra.webp\",\"descripcionProducto\":\"Nueva\"}\n{no es json}\n"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.resultado.creados").value(0))
+				.andExpect(jsonPath("$.resultado.actualizados").value(1))
+				.andExpect(jsonPath("$.resultado.rechazados").value(1));
+		assertEquals(99.5, productoRepo.findByNombreProducto(PREFIJO + "1").orElseThrow().getPrecioProducto());
+	}
+
+	@Test
+	void importarSinFormatoOEncabezadoEsError() throws Exception {
+		mockMvc.perform(post("/admin/api/productos/importar").contentType("text/plain").content("x"))
+				.andExpect(status().isBadRequest());
+		mockMvc.perform(post("/admin/api/productos/importar").param("formato", "csv").content("nombre,precio\r\nx,1\r\n"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void exportarRecorreTodoElCatalogoYSePuedeReimportar() throws Exception {
+		StringBuilder jsonl = new StringBuilder();
+		for (int i = 0; i < FILAS; i++) {
+			jsonl.append("{\"nombreProducto\":\"").append(PREFIJO).append(i)
+				.append("\",\"precioProducto\":").append(10 + i)
+				.append(",\"rutaImagenProducto\":\"imagen.webp\",\"descripcionProducto\":\"Con \\\"comillas\\\", y coma\"}\n");
+		}
+		// Campos que el CSV exporta con ' para que no se evalúen como fórmula
+		jsonl.append("{\"nombreProducto\":\"-").append(PREFIJO).append("20% Brownie\",\"precioProducto\":5")
+			.append(",\"rutaImagenProducto\":\"imagen.webp\",\"descripcionProducto\":\"=SUMA(1;2)\",\"ingredientesProducto\":\"@chocolate\"}\n");
+		mockMvc.perform(post("/admin/api/productos/importar").param("formato", "jsonl").content(jsonl.toString()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.resultado.creados").value(FILAS + 1));
+
+		MvcResult asincrono = mockMvc.perform(get("/admin/api/productos/exportar").param("formato", "csv"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		String csv = mockMvc.perform(asyncDispatch(asincrono))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+		long total = productoRepo.count();
+		assertEquals(total + 1, csv.split("\r\n").length);
+
+		// El archivo exportado vuelve a importarse sin crear ni rechazar filas
+		mockMvc.perform(post("/admin/api/productos/importar").contentType("text/csv").content(csv))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.resultado.creados").value(0))
+				.andExpect(jsonPath("$.resultado.actualizados").value(total))
+				.andExpect(jsonPath("$.resultado.rechazados").value(0));
+
+		producto formula = productoRepo.findByNombreProducto("-" + PREFIJO + "20% Brownie").orElseThrow();
+		assertEquals("=SUMA(1;2)", formula.getDescripcionProducto());
+		assertEquals("@chocolate", formula.getIngredientesProducto());
+	}
+
+	@Test
+	void importarDeduplicaNombresSinDistinguirAcentos() throws Exception {
+		String csv = "nombreProducto,precioProducto,rutaImagenProducto,descripcionProducto\r\n"
+				+ PREFIJO + "Tiramisú,100,imagen.webp,Primera\r\n"
+				+ PREFIJO + "TIRAMISU,200,imagen.webp,Segunda\r\n";
+
+		// MySQL (utf8mb4_0900_ai_ci) los considera el mismo nombre: una sola fila, gana la última
+		mockMvc.perform(post("/admin/api/productos/importar").contentType("text/csv").content(csv))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.resultado.creados").value(1))
+				.andExpect(jsonPath("$.resultado.duplicados").value(1))
+				.andExpect(jsonPath("$.resultado.rechazados").value(0));
+		assertEquals("Segunda", productoRepo.findByNombreProducto(PREFIJO + "TIRAMISU").orElseThrow().getDescripcionProducto());
+	}
+
+	@Test
+	void exportarCsvNeutralizaFormulas() throws Exception {
+		mockMvc.perform(post("/admin/api/productos/importar").param("formato", "jsonl")
+				.content("{\"nombreProducto\":\"" + PREFIJO + "formula\",\"precioProducto\":10,\"rutaImagenProducto\":\"imagen.webp\","
+						+ "\"descripcionProducto\":\"=HYPERLINK(\\\"http://x\\\")\",\"ingredientesProducto\":\"@SUM(A1)\"}\n"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.resultado.creados").value(1));
+
+		MvcResult asincrono = mockMvc.perform(get("/admin/api/productos/exportar").param("formato", "csv"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		String csv = mockMvc.perform(asyncDispatch(asincrono))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+		assertTrue(csv.contains("\r\n" + PREFIJO + "formula,10.0,imagen.webp,\"'=HYPERLINK(\"\"http://x\"\")\",\"'@SUM(A1)\"\r\n"), csv);
+	}
+}
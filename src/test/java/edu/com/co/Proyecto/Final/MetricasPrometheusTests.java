@@ -0,0 +1,79 @@
+package edu.com.co.Proyecto.Final;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import edu.com.co.Proyecto.Final.Model.producto;
+import edu.com.co.Proyecto.Final.Repository.productoRepository;
+
+/**
+ * El endpoint de scrape expone los timers de controladores, servicios y repositorios
+ * (con buckets de histograma), los contadores de autenticación y las métricas de los caches
+ * Las pruebas desactivan la exportación de métricas por defecto: @AutoConfigureObservability la habilita
+ * El scrape exige una cuenta ADMIN; la salud es pública
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricasPrometheusTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private productoRepository productoRepo;
+
+	@Test
+	void contadoresDeAutenticacion() throws Exception {
+		mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"username\":\"user\",\"password\":\"user123\"}"))
+				.andExpect(status().isOk());
+		mockMvc.perform(post("/api/auth/login").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"username\":\"user\",\"password\":\"incorrecta\"}"))
+				.andExpect(status().isUnauthorized());
+
+		mockMvc.perform(get("/actuator/prometheus").with(httpBasic("admin", "admin123")))
+				.andExpect(status().isOk())
+				.andExpect(content().string(containsString("autenticacion_intentos_total{")))
+				.andExpect(content().string(containsString("resultado=\"exito\"")))
+				.andExpect(content().string(containsString("motivo=\"BadCredentialsException\"")));
+	}
+
+	@Test
+	void scrapeSoloParaAdministradores() throws Exception {
+		mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+		mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isUnauthorized());
+		mockMvc.perform(get("/actuator/prometheus").with(httpBasic("user", "user123"))).andExpect(status().isForbidden());
+		mockMvc.perform(get("/actuator/prometheus").with(httpBasic("admin", "incorrecta"))).andExpect(status().isUnauthorized());
+	}
+
+	@Test
+	@WithMockUser(roles = "USER")
+	void timersConHistogramaYCaches() throws Exception {
+		Long idProducto = productoRepo.findByNombreProducto("Cheesecake de Fresa").map(producto::getIdProducto).orElseThrow();
+		mockMvc.perform(get("/user/producto/" + idProducto)).andExpect(status().isOk());
+		mockMvc.perform(get("/user/producto/" + idProducto)).andExpect(status().isOk());
+
+		mockMvc.perform(get("/actuator/prometheus").with(user("admin").roles("ADMIN")))
+				.andExpect(status().isOk())
+				.andExpect(content().string(containsString("http_server_requests_seconds_bucket{")))
+				.andExpect(content().string(containsString("servicio_seconds_bucket{")))
+				.andExpect(content().string(containsString("method=\"obtenerDetalle\"")))
+				.andExpect(content().string(containsString("spring_data_repository_invocations_seconds_bucket{")))
+				.andExpect(content().string(containsString("cache_gets_total{application=\"Proyecto-Final\",cache=\"detalle.producto\"")));
+	}
+}
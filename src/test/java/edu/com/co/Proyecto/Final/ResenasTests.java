@@ -0,0 +1,109 @@
+package edu.com.co.Proyecto.Final;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.com.co.Proyecto.Final.Model.producto;
+import edu.com.co.Proyecto.Final.Model.resena;
+import edu.com.co.Proyecto.Final.Model.usuario;
+import edu.com.co.Proyecto.Final.Repository.productoRepository;
+import edu.com.co.Proyecto.Final.Repository.resenaRepository;
+import edu.com.co.Proyecto.Final.Repository.usuarioRepository;
+import edu.com.co.Proyecto.Final.Service.productoService;
+import edu.com.co.Proyecto.Final.Service.resenaService;
+import edu.com.co.Proyecto.Final.Service.usuarioService;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Agregados de calificación del producto al crear, editar y eliminar reseñas
+ * Usa un producto propio que se elimina al terminar para no alterar las demás pruebas
+ */
+@SpringBootTest
+class ResenasTests {
+
+	@Autowired
+	private resenaService resenaService;
+
+	@Autowired
+	private resenaRepository resenaRepo;
+
+	@Autowired
+	private productoRepository productoRepo;
+
+	@Autowired
+	private productoService productoService;
+
+	@Autowired
+	private usuarioRepository usuarioRepo;
+
+	@Autowired
+	private usuarioService usuarioService;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private Long idUsuario;
+	private Long idProducto;
+
+	@BeforeEach
+	void crearProducto() {
+		usuario u = usuarioRepo.findByNombreUsuario("resenas").orElseGet(() ->
+				usuarioService.registrarNuevoUsuario("resenas", "resenas@example.com", "clave123", "clave123", 3001234567L, null));
+		idUsuario = u.getIdUsuario();
+
+		producto p = new producto("Producto de reseñas");
+		p.setPrecioProducto(1000.0);
+		p.setRutaImagenProducto("imagen.webp");
+		p.setDescripcionProducto("Producto para probar agregados");
+		idProducto = productoService.crearProducto(p).getIdProducto();
+	}
+
+	@AfterEach
+	void eliminarProducto() {
+		productoService.eliminarProducto(idProducto);
+	}
+
+	@Test
+	void calificacionAntiguaFueraDeRangoSePuedeEditarYEliminar() {
+		resena r = resenaService.crearResena(idUsuario, idProducto, 3, null);
+
+		// Fila anterior a la validación: la columna no restringe el rango
+		r.setCalificacion(9);
+		resenaRepo.save(r);
+
+		resenaService.actualizarResena(r.getIdResena(), null, "Solo cambia el comentario");
+		assertEquals("Solo cambia el comentario", resenaRepo.findById(r.getIdResena()).orElseThrow().getComentarioResena());
+
+		resenaService.eliminarResena(r.getIdResena());
+		assertFalse(resenaRepo.existsById(r.getIdResena()));
+		assertEquals(0, productoRepo.findById(idProducto).orElseThrow().getCantidadResenas());
+	}
+
+	@Test
+	@Transactional
+	void deltaNoDesconectaEntidadesDelLlamador() {
+		usuario u = usuarioRepo.findById(idUsuario).orElseThrow();
+		producto p = productoRepo.findById(idProducto).orElseThrow();
+
+		resenaService.crearResena(idUsuario, idProducto, 4, null);
+
+		// El producto ya cargado ve los agregados nuevos
+		assertEquals(1, p.getCantidadResenas());
+		assertEquals(1, p.getResenas4Estrellas());
+
+		// Y los cambios a entidades cargadas antes de la reseña se siguen guardando
+		u.setNumeroTelefonoUsuario(3009998877L);
+		entityManager.flush();
+		entityManager.clear();
+		assertEquals(3009998877L, usuarioRepo.findById(idUsuario).orElseThrow().getNumeroTelefonoUsuario());
+	}
+}